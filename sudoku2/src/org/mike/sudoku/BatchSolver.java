@@ -0,0 +1,132 @@
+package org.mike.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solve a batch of puzzles in parallel on a fork/join pool.  The list is split in halves
+ * until the pieces are small, and each worker thread reuses its pooled logic solver (see
+ * SolverPool) for every puzzle it gets.  Puzzles are solved in place.
+ */
+public class BatchSolver {
+
+	public enum Status {
+		// completely solved
+		SOLVED,
+		// the logic solver got stuck (CantSolveException)
+		STUCK,
+		// the givens contradict each other
+		INVALID
+	}
+
+	public static class Result {
+		Puzzle puzzle;
+		Status status;
+		int solveTries;
+
+		Result(Puzzle puzzle, Status status, int solveTries) {
+			this.puzzle = puzzle;
+			this.status = status;
+			this.solveTries = solveTries;
+		}
+
+		/**
+		 * @return the puzzle, with as much filled in as the solver found
+		 */
+		public Puzzle getPuzzle() {
+			return puzzle;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		public int getSolveTries() {
+			return solveTries;
+		}
+	}
+
+	// below this many puzzles, a task solves them itself instead of splitting
+	static int THRESHOLD = 16;
+
+	ForkJoinPool pool;
+
+	/**
+	 * A batch solver using all the processors
+	 */
+	public BatchSolver() {
+		this(new ForkJoinPool());
+	}
+
+	public BatchSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Solve all the puzzles.  This blocks until the whole batch is done.
+	 * @param puzzles the puzzles to solve.  They are filled in
+	 * @return one result per puzzle, in the same order
+	 */
+	public List<Result> solveAll(List<Puzzle> puzzles) {
+		Puzzle[] input = puzzles.toArray(new Puzzle[puzzles.size()]);
+		Result[] results = new Result[input.length];
+		pool.invoke(new SolveTask(input, results, 0, input.length));
+		return new ArrayList<Result>(Arrays.asList(results));
+	}
+
+	/**
+	 * Solve one puzzle with the solver of the current thread
+	 */
+	public static Result solveOne(Puzzle puzzle) {
+		return solveOne(puzzle, SolverPool.getSolver());
+	}
+
+	/**
+	 * Solve one puzzle with the given engine, and sort out how it went
+	 */
+	public static Result solveOne(Puzzle puzzle, Engine engine) {
+		try {
+			engine.solve(puzzle);
+			return new Result(puzzle, Status.SOLVED, engine.getSolveTries());
+		} catch (InvalidPuzzleException e) {
+			return new Result(puzzle, Status.INVALID, engine.getSolveTries());
+		} catch (CantSolveException e) {
+			return new Result(puzzle, Status.STUCK, engine.getSolveTries());
+		}
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	static class SolveTask extends RecursiveAction {
+		private static final long serialVersionUID = -3036440329563581245L;
+
+		Puzzle[] puzzles;
+		Result[] results;
+		int start;
+		int stop;
+
+		SolveTask(Puzzle[] puzzles, Result[] results, int start, int stop) {
+			this.puzzles = puzzles;
+			this.results = results;
+			this.start = start;
+			this.stop = stop;
+		}
+
+		@Override
+		protected void compute() {
+			if (stop - start <= THRESHOLD) {
+				for (int i = start; i < stop; i++) {
+					results[i] = solveOne(puzzles[i]);
+				}
+				return;
+			}
+			int mid = (start + stop) >>> 1;
+			invokeAll(new SolveTask(puzzles, results, start, mid), new SolveTask(puzzles, results, mid, stop));
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package org.mike.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mike.sudoku.BatchSolver.Result;
+import org.mike.sudoku.BatchSolver.Status;
+
+/**
+ * Solve puzzles 64 at a time with naked and hidden singles, for bulk grading.
+ *
+ * The candidates are bit sliced: for each square and digit there is one long, and bit p of
+ * it says whether the digit is still possible in that square of puzzle p.  So every mask
+ * operation of the singles works on 64 puzzles at once.  Puzzles the singles can't finish
+ * go to the logic solver of the thread (see SolverPool), which starts from what the singles
+ * found and has the rest of the techniques.  The results are the same as solving each puzzle
+ * with BatchSolver.solveOne, except for the solve tries of the puzzles the singles finish,
+ * which are the number of passes over the board.
+ *
+ * An instance reuses its arrays and is not thread safe.
+ */
+public class BitSliceSolver {
+	public static final int LANES = 64;
+
+	// candidates[cell * 9 + digit - 1]
+	long[] candidates = new long[81 * 9];
+	// lanes where the square has been placed, and its digit removed from the peers
+	long[] placed = new long[81];
+	// settled[unit * 9 + digit - 1]: lanes where the digit has been placed in the unit
+	long[] settled = new long[27 * 9];
+	// the pass each lane was solved in
+	int[] passes = new int[LANES];
+	// lanes found to contradict themselves
+	long dead;
+
+	/**
+	 * Solve all the puzzles in place
+	 * @return one result per puzzle, in the same order
+	 */
+	public List<Result> solveAll(List<Puzzle> puzzles) {
+		Puzzle[] input = puzzles.toArray(new Puzzle[puzzles.size()]);
+		Result[] results = new Result[input.length];
+		solveAll(input, results);
+		return new ArrayList<Result>(Arrays.asList(results));
+	}
+
+	/**
+	 * Solve all the puzzles in place, and put a result for each in results
+	 */
+	public void solveAll(Puzzle[] puzzles, Result[] results) {
+		for (int start = 0; start < puzzles.length; start += LANES) {
+			solveLanes(puzzles, results, start, Math.min(LANES, puzzles.length - start));
+		}
+	}
+
+	void solveLanes(Puzzle[] puzzles, Result[] results, int start, int count) {
+		long live = count == LANES ? -1L : (1L << count) - 1;
+		load(puzzles, start, count);
+
+		long active = live;
+		long solved = 0;
+		int pass = 0;
+		while (active != 0) {
+			pass++;
+			long changed = nakedSingles(active) | hiddenSingles(active);
+			long done = active & ~dead;
+			for (int cell = 0; cell < 81; cell++) {
+				done &= placed[cell];
+			}
+			for (long lanes = done; lanes != 0; lanes &= lanes - 1) {
+				passes[Long.numberOfTrailingZeros(lanes)] = pass;
+			}
+			solved |= done;
+			active &= ~done & ~dead;
+			if ((changed & active) == 0) {
+				break;
+			}
+		}
+
+		// the stuck lanes too.  The logic solver carries on from there
+		store(puzzles, start, live & ~dead);
+		for (int lane = 0; lane < count; lane++) {
+			Puzzle puzzle = puzzles[start + lane];
+			long bit = 1L << lane;
+			if ((dead & bit) != 0) {
+				results[start + lane] = new Result(puzzle, Status.INVALID, pass);
+			}
+			else if ((solved & bit) != 0) {
+				results[start + lane] = new Result(puzzle, Status.SOLVED, passes[lane]);
+			}
+			else {
+				results[start + lane] = BatchSolver.solveOne(puzzle);
+			}
+		}
+	}
+
+	/*
+	 * Set up the lanes from the puzzles.  A given just cuts its square down to one
+	 * candidate, and the first pass of naked singles places it
+	 */
+	void load(Puzzle[] puzzles, int start, int count) {
+		// collect the givens as lanes first: given[cell] has the lanes with a given in the
+		// square, and candidates the lanes where it is that digit
+		long[] given = placed;
+		Arrays.fill(candidates, 0);
+		Arrays.fill(given, 0);
+		for (int lane = 0; lane < count; lane++) {
+			Puzzle puzzle = puzzles[start + lane];
+			long bit = 1L << lane;
+			for (int cell = 0; cell < 81; cell++) {
+				int row = cell / 9;
+				int col = cell % 9;
+				if (puzzle.isFilled(row, col)) {
+					candidates[cell * 9 + puzzle.getSquare(row, col) - 1] |= bit;
+					given[cell] |= bit;
+				}
+			}
+		}
+		for (int cell = 0; cell < 81; cell++) {
+			int base = cell * 9;
+			for (int d = 0; d < 9; d++) {
+				candidates[base + d] |= ~given[cell];
+			}
+		}
+		Arrays.fill(placed, 0);
+		Arrays.fill(settled, 0);
+		dead = 0;
+	}
+
+	/*
+	 * Write the placed squares of the lanes back to their puzzles
+	 */
+	void store(Puzzle[] puzzles, int start, long lanes) {
+		for (int cell = 0; cell < 81; cell++) {
+			int base = cell * 9;
+			long done = placed[cell] & lanes;
+			for (int d = 0; done != 0 && d < 9; d++) {
+				for (long m = candidates[base + d] & done; m != 0; m &= m - 1) {
+					puzzles[start + Long.numberOfTrailingZeros(m)].setSquare(cell / 9, cell % 9, d + 1);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Place a digit in a square in the given lanes, and remove it from the peers
+	 */
+	void place(int cell, int d, long lanes) {
+		int base = cell * 9;
+		for (int e = 0; e < 9; e++) {
+			if (e != d) {
+				candidates[base + e] &= ~lanes;
+			}
+		}
+		placed[cell] |= lanes;
+		for (int u : CandidateGrid.CELL_UNITS[cell]) {
+			settled[u * 9 + d] |= lanes;
+		}
+		for (int peer : CandidateGrid.PEERS[cell]) {
+			candidates[peer * 9 + d] &= ~lanes;
+		}
+	}
+
+	/*
+	 * Place every square with one candidate left.  Returns the lanes that changed
+	 */
+	long nakedSingles(long active) {
+		long changed = 0;
+		for (int cell = 0; cell < 81; cell++) {
+			long open = active & ~placed[cell];
+			if (open == 0) {
+				continue;
+			}
+			int base = cell * 9;
+			long once = 0;
+			long twice = 0;
+			for (int d = 0; d < 9; d++) {
+				long m = candidates[base + d];
+				twice |= once & m;
+				once |= m;
+			}
+			// a square with no candidates left.  Two placements of one digit in a unit
+			// always show up like this, since the second square loses the digit
+			dead |= open & ~once;
+			long single = open & once & ~twice;
+			if (single == 0) {
+				continue;
+			}
+			changed |= single;
+			for (int d = 0; d < 9; d++) {
+				long lanes = candidates[base + d] & single;
+				if (lanes != 0) {
+					place(cell, d, lanes);
+				}
+			}
+		}
+		return changed;
+	}
+
+	/*
+	 * Place every digit that has one place left in a unit.  Returns the lanes that changed
+	 */
+	long hiddenSingles(long active) {
+		long changed = 0;
+		for (int u = 0; u < 27; u++) {
+			int[] cells = CandidateGrid.UNITS[u];
+			for (int d = 0; d < 9; d++) {
+				long open = active & ~settled[u * 9 + d];
+				if (open == 0) {
+					continue;
+				}
+				long once = 0;
+				long twice = 0;
+				for (int cell : cells) {
+					long m = candidates[cell * 9 + d];
+					twice |= once & m;
+					once |= m;
+				}
+				// a digit with no place left
+				dead |= open & ~once;
+				long hidden = open & once & ~twice;
+				if (hidden == 0) {
+					continue;
+				}
+				for (int cell : cells) {
+					long lanes = hidden & candidates[cell * 9 + d] & ~placed[cell];
+					if (lanes != 0) {
+						changed |= lanes;
+						place(cell, d, lanes);
+					}
+				}
+			}
+		}
+		return changed;
+	}
+}
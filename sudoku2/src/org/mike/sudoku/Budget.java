@@ -0,0 +1,147 @@
+package org.mike.sudoku;
+
+/**
+ * A limit on how long a solve or build may take: a deadline, a number of search nodes and a
+ * number of technique steps, any of which can be left open.  The engines charge the budget
+ * as they go, and stop with a BudgetExceededException when it runs out.  Whatever they found
+ * by then is kept, as for any other CantSolveException.
+ *
+ * Charging a node or a step is a decrement and a compare.  The clock, the cancel flag and the
+ * thread's interrupt flag are only looked at every CHECK_EVERY charges, so a budget is cheap
+ * enough for the search loops.  A budget can be shared by the steps of one job, like all the
+ * tries of a build, but it is charged by one thread at a time.  cancel() may be called from
+ * any thread.
+ */
+public class Budget {
+	// charges between looks at the clock and the flags
+	static final int CHECK_EVERY = 256;
+
+	// System.nanoTime() of the deadline, if there is one
+	long deadline;
+	boolean timed;
+	long nodes;
+	long steps;
+	int untilCheck = CHECK_EVERY;
+	volatile boolean cancelled;
+	// what ran out, or null
+	String exceeded;
+
+	/**
+	 * A budget with no limits.  It still stops on cancel() or an interrupt
+	 */
+	public Budget() {
+		this(0, 0, 0);
+	}
+
+	/**
+	 * @param millis time allowed from now, 0 for no deadline
+	 * @param nodes search nodes allowed, 0 for no limit
+	 * @param steps technique steps allowed, 0 for no limit
+	 */
+	public Budget(long millis, long nodes, long steps) {
+		if (millis < 0 || nodes < 0 || steps < 0) {
+			throw new IllegalArgumentException("Limits can't be negative");
+		}
+		timed = millis > 0;
+		deadline = System.nanoTime() + millis * 1000000L;
+		this.nodes = nodes > 0 ? nodes : Long.MAX_VALUE;
+		this.steps = steps > 0 ? steps : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return a budget that only has a deadline
+	 */
+	public static Budget millis(long millis) {
+		return new Budget(millis, 0, 0);
+	}
+
+	/**
+	 * Charge one search node
+	 * @return false if the budget has run out
+	 */
+	public boolean node() {
+		if (--nodes < 0) {
+			return spent("node limit");
+		}
+		return --untilCheck > 0 || check();
+	}
+
+	/**
+	 * Charge one technique step
+	 * @return false if the budget has run out
+	 */
+	public boolean step() {
+		if (--steps < 0) {
+			return spent("step limit");
+		}
+		return --untilCheck > 0 || check();
+	}
+
+	/*
+	 * Look at the clock and the flags.  Returns false if we have to stop
+	 */
+	boolean check() {
+		untilCheck = CHECK_EVERY;
+		if (exceeded != null) {
+			return false;
+		}
+		if (cancelled) {
+			return spent("cancelled");
+		}
+		if (Thread.currentThread().isInterrupted()) {
+			return spent("interrupted");
+		}
+		if (timed && System.nanoTime() - deadline >= 0) {
+			return spent("deadline");
+		}
+		return true;
+	}
+
+	boolean spent(String what) {
+		if (exceeded == null) {
+			exceeded = what;
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the budget has run out, looking at the clock now
+	 */
+	public boolean isExceeded() {
+		return !check();
+	}
+
+	/**
+	 * Throw if the budget has run out, looking at the clock now
+	 */
+	public void verify() throws BudgetExceededException {
+		if (!check()) {
+			throw new BudgetExceededException(this);
+		}
+	}
+
+	/**
+	 * Make everything charged to this budget stop soon
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return what ran out ("deadline", "node limit", "step limit", "cancelled" or
+	 * "interrupted"), or null if nothing has yet
+	 */
+	public String getExceeded() {
+		return exceeded;
+	}
+
+	/**
+	 * @return milliseconds until the deadline, at least 0, or Long.MAX_VALUE if there is none
+	 */
+	public long getRemainingMillis() {
+		if (!timed) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, (deadline - System.nanoTime()) / 1000000L);
+	}
+}
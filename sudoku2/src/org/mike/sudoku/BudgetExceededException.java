@@ -0,0 +1,24 @@
+package org.mike.sudoku;
+
+/**
+ * A solve or build ran out of its Budget before it finished.  Anything it found so far has
+ * been kept
+ */
+public class BudgetExceededException extends CantSolveException {
+
+	private static final long serialVersionUID = 2981736641077306553L;
+
+	String exceeded;
+
+	public BudgetExceededException(Budget budget) {
+		super("Out of budget: " + budget.getExceeded());
+		exceeded = budget.getExceeded();
+	}
+
+	/**
+	 * @return what ran out, see Budget.getExceeded
+	 */
+	public String getExceeded() {
+		return exceeded;
+	}
+}
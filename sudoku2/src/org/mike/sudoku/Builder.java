@@ -1,11 +1,7 @@
 package org.mike.sudoku;
 
-import java.io.IOException;
-import java.util.HashSet;
-import java.util.PriorityQueue;
-import java.util.Random;
-
 import org.mike.util.Range;
+import org.mike.util.SplitRandom;
 
 public class Builder {
 	// the filled out puzzle
@@ -13,22 +9,34 @@ public class Builder {
 	// whether or not to show the square
 	boolean[][] show = new boolean[9][9];
 
-	// Solution retry.  We try to construct a random puzzle.  If an attempt fails, reset and
-	// try again.  Blow up after we hit this limit.  Measurements have shown this is about
-	// twice as many tries as we need
-	static int MAX_TRIES = 500; 
+	// times the grid generator had to start over
 	int buildTries = 0;
+	// clues the digger had to put back
 	int solveTries = 0;
 	int solverSolveTries = 0;
+	// how hard the puzzle is, when the logic solver checked it
+	Rating rating;
 	
 	// what percent (* 100) of squares to show
 	static int SHOW_DEFAULT = 35;
+	/**
+	 * The show ratio that digs as far as the engine allows.  With dancing links that is a
+	 * minimal puzzle, where taking away any clue gives a second solution
+	 */
+	public static final int MINIMAL = 0;
 	int showRatio;
+
+	// every random choice comes from this, so the seed is enough to build the puzzle again
+	long seed;
+	SplitRandom random;
+	// a copy is the puzzle built from the seed under the transform of its shuffle, see transform
+	Builder original;
+	long shuffle;
 	
 	/**
-	 * A new sodoku puzzle.  This will try to create a random puzzle, but if it exceeds the
-	 * try limit it will fail
-	 * @throws NoSolutionException Could not create a puzzle in maxium try count
+	 * A new sodoku puzzle.  This digs holes in a random grid until about SHOW_DEFAULT
+	 * percent of the squares are left, or no more clues can come out
+	 * @throws NoSolutionException The digged puzzle could not be solved
 	 */
 	public Builder() throws NoSolutionException {
 		this(SHOW_DEFAULT);
@@ -36,99 +44,183 @@ public class Builder {
 	
 	
 	public Builder(int showRatio) throws NoSolutionException {
+		this(showRatio, null);
+	}
+
+	/**
+	 * The puzzle of a seed.  The same seed and show ratio always give the same puzzle
+	 * @param showRatio percent of the squares to show
+	 * @param seed the seed of the random choices, see getSeed
+	 * @throws NoSolutionException The digged puzzle could not be solved
+	 */
+	public Builder(int showRatio, long seed) throws NoSolutionException {
+		this(showRatio, null, null, seed);
+	}
+	
+	/**
+	 * A new sudoku puzzle that has to be solved by the given engine
+	 * @param showRatio percent of the squares to show
+	 * @param engine the engine that checks the puzzle.  null for the pooled logic solver of
+	 * this thread, so the puzzle can be done by hand
+	 * @throws NoSolutionException The digged puzzle could not be solved
+	 */
+	public Builder(int showRatio, Engine engine) throws NoSolutionException {
+		this(showRatio, engine, null);
+	}
+
+	/**
+	 * A new sudoku puzzle, built within a budget.  Every try and every solve is charged to
+	 * the budget
+	 * @param showRatio percent of the squares to show
+	 * @param engine the engine that checks the puzzle, null for the pooled logic solver
+	 * @param budget the limits of the build, or null for none
+	 * @throws BudgetExceededException the budget ran out first
+	 * @throws NoSolutionException The digged puzzle could not be solved
+	 */
+	public Builder(int showRatio, Engine engine, Budget budget) throws NoSolutionException {
+		this(showRatio, engine, budget, SplitRandom.newSeed());
+	}
+
+	/**
+	 * A new sudoku puzzle from a seed, built within a budget.  The same seed, show ratio and
+	 * kind of engine always give the same puzzle, as long as the budget doesn't run out.
+	 *
+	 * The pooled logic solver is incremental (see SolverPool), so an elimination stays made
+	 * for the rest of the solve instead of having to be found again after every placement the
+	 * way a stepping solver does.  Which clues the digger can take out, and so which puzzles
+	 * come out, depends on that choice
+	 * @param showRatio percent of the squares to show
+	 * @param engine the engine that checks the puzzle, null for the pooled logic solver
+	 * @param budget the limits of the build, or null for none
+	 * @param seed the seed of the random choices
+	 * @throws BudgetExceededException the budget ran out first
+	 * @throws NoSolutionException The digged puzzle could not be solved
+	 */
+	public Builder(int showRatio, Engine engine, Budget budget, long seed) throws NoSolutionException {
 		// save the show ratio
 		this.showRatio = showRatio;
+		this.seed = seed;
+		random = new SplitRandom(seed);
+		if (engine == null) {
+			// incremental, see above
+			engine = SolverPool.getSolver();
+		}
 		
 		
-		/*
-		 * Build a puzzle. This proceeds as follows:
-		 * There are two main routines: fillbox and fixbox
-		 * fillbox fills a box with random numbers.  We will use this on the first box,
-		 * then try combinations of fixbox for the rest, until we get a valid puzzle.
-		 * If we can't get one in MAX_TRIES tries, give up
-		 * 
-		 */
-		// The basics for this puzzle: box 0, 0
+		// a random full grid.  The generator always finds one, so there is nothing to retry
+		GridGenerator generator = new GridGenerator(random);
+		int[] grid = generator.generate();
+		buildTries = generator.getRestarts();
 		puzzle = new Integer[9][9];
-		fillbox(0,0);
-		
-		// Now try filling in the other boxes
-		while (true) {
-			try {
-				
-				fixbox(1,0);
-				fixbox(0,1);
-				fixbox(1,1);
-				
-				fixbox(2,0);
-				fixbox(2,1);
-				fixbox(0,2);
-				fixbox(1,2);
-				fixbox(2,2);
-				
-				break;
-			}
-			catch (NoSolutionException e) {
-				// If we can't fill in this time, increment the try counter
-				buildTries++;
-				
-				// reset the puzzle.  Copy only the box at 0,0
-				Integer[][] oldPuzzle = puzzle;
-				puzzle = new Integer[9][9];
-				for (int r : new Range(3)) {
-					for (int c : new Range(3)) {
-						puzzle[r][c] = oldPuzzle[r][c];
-					}
-				}
-				
-				// blow up if we have to
-				if (buildTries >= MAX_TRIES) {
-					throw new NoSolutionException("Exceded max tries of " + MAX_TRIES, e);
-				}
-			}
+		for (int cell = 0; cell < 81; cell++) {
+			puzzle[cell / 9][cell % 9] = grid[cell];
 		}
 		
-		// outer loop that tries a new show map
-		while (true) {
-			buildShow();
-			try {
-				Solver solver = new Solver(toPuzzleString());
-				// inner loop that attempts to solve
-				while (true) {
-					solver.solve();
-					if (toSolutionString().equals(solver.toString())) {
-						// We have a solution, so return
-						solverSolveTries = solver.getSolveTries();
-						return;
-					}
-				}
-			} catch (IOException e) {
-				throw new NoSolutionException("Invalid Puzzle!! shouldn't happen!", e);
-			}
-			catch (CantSolveException e) {
-				solveTries++;
-				if (solveTries > MAX_TRIES *  4) {
-					throw new NoSolutionException("Not a solvable puzzle", e);
-				}
-			}
+		// dig holes in the grid until about showRatio percent of the squares are left.  Each
+		// clue taken out costs one solve, and the ones the engine can't do without go back
+		HoleDigger digger = new HoleDigger(engine, random);
+		digger.setMinClues(showRatio * 81 / 100);
+		digger.setBudget(budget);
+		boolean[] shown = digger.dig(grid);
+		solveTries = digger.getRestored();
+		for (int cell = 0; cell < 81; cell++) {
+			show[cell / 9][cell % 9] = shown[cell];
+		}
+
+		// solve what is left once more, for the rating
+		Puzzle clues = new Puzzle();
+		fillClues(clues);
+		try {
+			engine.solve(clues, budget);
+		}
+		catch (BudgetExceededException e) {
+			throw e;
+		}
+		catch (CantSolveException e) {
+			throw new NoSolutionException("Not a solvable puzzle", e);
+		}
+		solverSolveTries = engine.getSolveTries();
+		if (engine instanceof Solver) {
+			rating = new Rating(((Solver) engine).getRating());
 		}
 	}
 	
-	
-	void buildShow() {
-		// we hide each number at the same probability
-		int[] numRatio = new int[9];
-		for (int i : new Range(9)) {
-			numRatio[i] = showRatio;
+	/*
+	 * The source puzzle under a transform
+	 */
+	Builder(Builder source, Transform transform) {
+		showRatio = source.showRatio;
+		seed = source.seed;
+		puzzle = new Integer[9][9];
+		for (int r = 0; r < 9; r++) {
+			for (int c = 0; c < 9; c++) {
+				int cell = transform.sourceCell(r, c);
+				puzzle[r][c] = transform.getDigit(source.puzzle[cell / 9][cell % 9]);
+				show[r][c] = source.show[cell / 9][cell % 9];
+			}
 		}
+		rating = source.rating;
+	}
 
-		Random random = new Random();
-		for (int r : new Range(9)) {
-			for (int c : new Range(9)) {
-				show[r][c] = random.nextInt(100) <= numRatio[puzzle[r][c] -1] ? true : false;
+	/**
+	 * The puzzle this one was built as relabeled, reflected or shuffled, by the random
+	 * transform of a shuffle seed (see Transform.random).  The copy has one solution exactly
+	 * when this one does, and the logic solver needs the same techniques for it, so it keeps
+	 * this rating.  Solving the copy can give a slightly different score, since the techniques
+	 * meet the squares in another order, but never another level.
+	 *
+	 * The copy has the seed of this puzzle and the shuffle, and the two build it again.  A
+	 * copy of a copy is a transform of the puzzle that was built, so two seeds are always enough
+	 * @param shuffle the seed of the transform
+	 * @return a new puzzle for the price of a copy
+	 */
+	public Builder transform(long shuffle) {
+		Builder source = original != null ? original : this;
+		Builder copy = new Builder(source, Transform.random(new SplitRandom(shuffle)));
+		copy.original = source;
+		copy.shuffle = shuffle;
+		return copy;
+	}
+
+	/*
+	 * Set up the puzzle with only the squares we show
+	 */
+	void fillClues(Puzzle clues) {
+		for (int r = 0; r < 9; r++) {
+			for (int c = 0; c < 9; c++) {
+				clues.setSquare(r, c, show[r][c] ? puzzle[r][c] : 0);
 			}
 		}
-		
+	}
+	
+	
+	/**
+	 * @return the seed this puzzle was built from.  Keep it to build the puzzle again, with
+	 * the shuffle if it is a copy
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return true if this is a copy of a puzzle that was built, see transform
+	 */
+	public boolean isCopy() {
+		return original != null;
+	}
+
+	/**
+	 * @return the seed of the transform that made this copy, or 0 if it isn't one
+	 */
+	public long getShuffle() {
+		return shuffle;
+	}
+
+	/**
+	 * @return the percent of the squares the builder aimed to show
+	 */
+	public int getShowRatio() {
+		return showRatio;
 	}
 
 	public int getBuildTries() {
@@ -142,149 +234,14 @@ public class Builder {
 	public int getSolverSolveTries() {
 		return solverSolveTries;
 	}
-
-
-	void fillbox(int rb, int cb) {
-		Integer[] boxnums = Range.shuffleRange(1,10).toArray(new Integer[0]);
-		int cur = 0;
-		for (int r : new Range(3)) {
-			for (int c : new Range(3)) {
-				puzzle[rc(rb,r)][rc(cb,c)] = boxnums[cur++];
-			}
-		}
-				
-	}
 	
-	class PossibleElem extends HashSet<Integer> implements Comparable<PossibleElem> {
-
-
-		private static final long serialVersionUID = 2450400441412942120L;
-		
-		int row;
-		int column;
-		
-		public PossibleElem(int row, int column)
-		{
-			super(Range.rangeList(1, 10));
-			this.row = row;
-			this.column = column;
-		}
-
-		public int compareTo(PossibleElem o) {
-			return Integer.compare(this.size(), o.size());
-		}
-
-		public int getRow() {
-			return row;
-		}
-
-		public int getColumn() {
-			return column;
-		}
-		
-		public Integer pickVal() {
-			Random r = new Random();
-			Integer[] vals = toArray(new Integer[0]);
-			return vals[r.nextInt(vals.length)];
-		}
-		
-	}
-	void fixbox (int rb, int cb) throws NoSolutionException {
-		// create the set elements for the possible values
-		PossibleElem[][] pelems = new PossibleElem[3][3];
-		PriorityQueue<PossibleElem> pqueue = new PriorityQueue<PossibleElem>();
-		
-		for (int r : new Range(3)) {
-			for (int c : new Range(3)) {
-				PossibleElem p = new PossibleElem(rc(rb,r), rc(cb,c));
-				pelems[r][c] = p;
-				pqueue.add(p);
-			}
-		}
-		
-		// find the possible values in each cell.  First, sort through the rows
-		// in this loop pr, pc are box relative r and c are values in the puzzle
-		for (int pr : new Range(3)) {
-			int r = rc(rb, pr);
-			for (int c : new Range(9)) {
-				// for each r/c, check if the puzzle has been set
-				if (puzzle[r][c] != null) {
-					// if it has, for each column in this box on this row, we remove it as a possible value
-					for (int pc : new Range(3)) {
-						pelems[pr][pc].remove(puzzle[r][c]);
-					}
-				}
-			}
-		}
-		
-		// same thing, this time for each of the columns
-		
-		for (int pc : new Range(3)) {
-			int c = rc(cb, pc);
-			for (int r : new Range(9)) {
-				// for each r/c, check if the puzzle has been set
-				if (puzzle[r][c] != null) {
-					// if it has, for each column in this box on this row, we remove it as a possible value
-					for (int pr : new Range(3)) {
-						pelems[pr][pc].remove(puzzle[r][c]);
-					}
-				}
-			}
-		}
-		// First check:  make sure the union of the all the sets contains 9 elements
-		HashSet<Integer> possibleUnion = new HashSet<Integer>();
-		for (PossibleElem e : pqueue) {
-			possibleUnion.addAll(e);
-		}
-		if (possibleUnion.size() != 9) {
-			throw new NoSolutionException("The box does not have all the numbers");
-		}
-		
-		// second check:  See if any of the cells have empty sets
-		for (PossibleElem e : pqueue) {
-			if (e.isEmpty()) {
-				throw new NoSolutionException("Empty Cell at " + e.getRow() + ", " + e.getColumn());
-			}
-		}
-		
-		// we now know what's possible.  Create the set of elements we still need
-		HashSet<Integer> boxNeeds = new HashSet<Integer>(Range.rangeList(1, 10));
-		
-		// Run through the queue, smallest set first
-		while (! pqueue.isEmpty()) {
-			PossibleElem elem = pqueue.poll();
-			// intersect with our needs
-			elem.retainAll(boxNeeds);
-			// if set is empty, there's now way to fix this puzzle
-			if (elem.isEmpty()) {
-				throw new NoSolutionException("Puzzle not possible");
-			}
-			
-			// pick an element.  I guess we'll get an iterator, and choose the first one
-			Integer val = elem.pickVal();
-			
-			// set this in the puzzle, remove it from needed and the rest of the sets
-			puzzle[elem.getRow()][elem.getColumn()] = val;
-			boxNeeds.remove(val);
-			for (PossibleElem e : pqueue) {
-				e.remove(val);
-			}
-		}
-		
-		
-		
-	}
-	
-	/**
-	 * Convert a row or column box + row or column box number to a row or column 
-	 * @param rcb Row or Column Box
-	 * @param rc Row or COlumn in that box
-	 * @return row or column index
+	/*
+	 * The difficulty of the puzzle, or null if it was only checked by dancing links
 	 */
-	int rc(int rcb, int rc) {
-		return rcb * 3 + rc;
+	public Rating getRating() {
+		return rating;
 	}
-	
+
 
 	public Integer puzzleInt(int row, int column)  {
 		return puzzle[row][column];
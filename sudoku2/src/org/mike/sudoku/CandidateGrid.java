@@ -0,0 +1,244 @@
+package org.mike.sudoku;
+
+/*
+ * Candidate masks for the 81 squares, kept up to date incrementally.  Placing a digit only
+ * removes it from the 20 peers of that square, and every unit (row, column or box) whose
+ * candidates changed is put on a work queue.  Squares that are left with a single choice go
+ * on a stack.  The techniques (see Pipeline) then only look at what changed instead of the
+ * whole board.
+ *
+ * Squares are numbered 0 to 80 in row order.  Units are numbered 0 to 26: rows, then
+ * columns, then boxes.
+ */
+public class CandidateGrid {
+	static final int[][] UNITS = new int[27][9];
+	static final int[][] CELL_UNITS = new int[81][3];
+	static final int[][] PEERS = new int[81][20];
+
+	static {
+		for (int cell = 0; cell < 81; cell++) {
+			int row = cell / 9;
+			int col = cell % 9;
+			int box = (row / 3) * 3 + col / 3;
+			int boxIndex = (row % 3) * 3 + col % 3;
+			UNITS[row][col] = cell;
+			UNITS[9 + col][row] = cell;
+			UNITS[18 + box][boxIndex] = cell;
+			CELL_UNITS[cell][0] = row;
+			CELL_UNITS[cell][1] = 9 + col;
+			CELL_UNITS[cell][2] = 18 + box;
+		}
+		for (int cell = 0; cell < 81; cell++) {
+			int n = 0;
+			for (int other = 0; other < 81; other++) {
+				if (other != cell && (row(other) == row(cell) || col(other) == col(cell) || box(other) == box(cell))) {
+					PEERS[cell][n++] = other;
+				}
+			}
+		}
+	}
+
+	static int row(int cell) {
+		return cell / 9;
+	}
+
+	static int col(int cell) {
+		return cell % 9;
+	}
+
+	static int box(int cell) {
+		return (cell / 27) * 3 + (cell % 9) / 3;
+	}
+
+	// candidate digits for each square
+	int[] candidates = new int[81];
+	// placed digit for each square, 0 if empty
+	int[] values = new int[81];
+	int filled;
+	boolean contradiction;
+
+	// the work queue.  A unit is on the queue at most once, so 27 slots are enough
+	int[] queue = new int[27];
+	boolean[] queued = new boolean[27];
+	int head;
+	int size;
+
+	// squares that have been cut down to one choice.  Candidates only shrink, so a square
+	// is pushed at most once
+	int[] singles = new int[81];
+	int singleCount;
+
+	// records the deductions, if anybody wants them
+	Trace trace;
+
+	/*
+	 * Reset to the givens of the puzzle.  Every unit starts on the work queue
+	 */
+	public void load(Puzzle puzzle) {
+		if (puzzle.getOrder() != 3) {
+			throw new IllegalArgumentException("The candidate grid only holds 9 x 9 puzzles");
+		}
+		if (trace != null) {
+			trace.load();
+		}
+		for (int cell = 0; cell < 81; cell++) {
+			candidates[cell] = Digits.ALL;
+			values[cell] = 0;
+		}
+		filled = 0;
+		contradiction = false;
+		head = 0;
+		size = 0;
+		singleCount = 0;
+		for (int u = 0; u < 27; u++) {
+			queued[u] = false;
+			enqueue(u);
+		}
+		for (int cell = 0; cell < 81; cell++) {
+			int digit = puzzle.getSquare(row(cell), col(cell));
+			if (puzzle.isFilled(row(cell), col(cell)) && !assign(cell, digit)) {
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Write the placed digits back to the puzzle
+	 */
+	public void store(Puzzle puzzle) {
+		for (int cell = 0; cell < 81; cell++) {
+			if (values[cell] != 0) {
+				puzzle.setSquare(row(cell), col(cell), values[cell]);
+			}
+		}
+	}
+
+	public int getCandidates(int cell) {
+		return candidates[cell];
+	}
+
+	public int getValue(int cell) {
+		return values[cell];
+	}
+
+	public int getFilled() {
+		return filled;
+	}
+
+	public boolean isSolved() {
+		return filled == 81;
+	}
+
+	public boolean hasContradiction() {
+		return contradiction;
+	}
+
+	/*
+	 * A technique found that the puzzle can't be solved from here
+	 */
+	public void setContradiction() {
+		contradiction = true;
+	}
+
+	/*
+	 * The squares of a unit
+	 */
+	public static int unitCell(int unit, int i) {
+		return UNITS[unit][i];
+	}
+
+	/*
+	 * Place a digit, and remove it from all the peers.  Returns false if this leads to a
+	 * contradiction
+	 */
+	public boolean assign(int cell, int digit) {
+		int bit = Digits.bit(digit);
+		if (values[cell] != 0) {
+			if (values[cell] != digit) {
+				contradiction = true;
+			}
+			return !contradiction;
+		}
+		if ((candidates[cell] & bit) == 0) {
+			contradiction = true;
+			return false;
+		}
+		if (trace != null) {
+			trace.placed(cell, digit);
+		}
+		values[cell] = digit;
+		candidates[cell] = bit;
+		filled++;
+		for (int u : CELL_UNITS[cell]) {
+			enqueue(u);
+		}
+		for (int peer : PEERS[cell]) {
+			if (!remove(peer, bit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Remove digits from the candidates of a square, and queue its units if anything changed.
+	 * Returns false if the square is left without candidates
+	 */
+	public boolean eliminate(int cell, int mask) {
+		if (trace != null && (candidates[cell] & mask) != 0) {
+			trace.eliminated(cell, candidates[cell] & mask);
+		}
+		return remove(cell, mask);
+	}
+
+	/*
+	 * eliminate, without tracing.  Placing a digit removes it from the peers this way, since
+	 * that follows from the placement
+	 */
+	boolean remove(int cell, int mask) {
+		if ((candidates[cell] & mask) == 0) {
+			return !contradiction;
+		}
+		candidates[cell] &= ~mask;
+		if (candidates[cell] == 0) {
+			contradiction = true;
+			return false;
+		}
+		if (values[cell] == 0 && Digits.isSingle(candidates[cell])) {
+			singles[singleCount++] = cell;
+		}
+		for (int u : CELL_UNITS[cell]) {
+			enqueue(u);
+		}
+		return !contradiction;
+	}
+
+	void enqueue(int unit) {
+		if (!queued[unit]) {
+			queued[unit] = true;
+			queue[(head + size) % 27] = unit;
+			size++;
+		}
+	}
+
+	/*
+	 * The next unit on the work queue, or -1 if there is none
+	 */
+	public int nextUnit() {
+		if (size == 0) {
+			return -1;
+		}
+		int unit = queue[head];
+		head = (head + 1) % 27;
+		size--;
+		queued[unit] = false;
+		return unit;
+	}
+
+	/*
+	 * The next square that was cut down to a single choice, or -1 if there is none
+	 */
+	public int nextSingle() {
+		return singleCount == 0 ? -1 : singles[--singleCount];
+	}
+}
@@ -0,0 +1,435 @@
+package org.mike.sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The canonical form of a 9 x 9 puzzle: of all the puzzles a Transform can turn it into, the
+ * one that is smallest when written out row by row, with 0 for the empty squares and the
+ * digits numbered in the order they first appear.  Two puzzles have the same canonical form
+ * exactly when one is a transform of the other, so the form is a key for caching and
+ * removing duplicates.
+ *
+ * Trying all 2 * 6^8 row and column orders would cost more than solving.  Instead the rows of
+ * the result are picked one at a time, and only the partial transforms whose rows so far are
+ * the smallest are kept.  The columns are not picked up front: each partial transform has an
+ * order of the columns in which tied columns (empty in every row so far) are kept in blocks,
+ * and tied stacks in groups, that later rows can still reorder.  Only digits that are seen
+ * for the first time in the same place of a row force a branch, since they get different
+ * numbers.  Rows with the same squares, and bands with the same rows, are only tried once.
+ *
+ * The form is only guaranteed for puzzles that don't repeat a digit in a row.  An instance
+ * reuses its work arrays and is not thread safe.
+ */
+public class Canonical {
+	// the key of a digit that hasn't been numbered yet.  It sorts after the numbered ones
+	static final int NEW = 10;
+
+	static final int[][][] PERMS = {
+		{},
+		{ { 0 } },
+		{ { 0, 1 }, { 1, 0 } },
+		{ { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } }
+	};
+
+	/*
+	 * A partial transform: the rows picked so far, the digits numbered so far, and the
+	 * columns as far as they are pinned down
+	 */
+	static class Candidate {
+		boolean transpose;
+		// the puzzle, transposed if need be, with 0 for empty squares
+		int[] grid;
+		int[] rows = new int[9];
+		int count;
+		int[] labels = new int[10];
+		int next = 1;
+		int[] cols = new int[9];
+		// the columns that start a block.  The columns of a block can still be swapped
+		boolean[] colStart = new boolean[9];
+		// the stacks that start a group.  The stacks of a group can still be swapped
+		boolean[] stackStart = new boolean[3];
+
+		Candidate(boolean transpose, int[] grid) {
+			this.transpose = transpose;
+			this.grid = grid;
+			for (int i = 0; i < 9; i++) {
+				cols[i] = i;
+				colStart[i] = i % 3 == 0;
+			}
+			stackStart[0] = true;
+		}
+
+		Candidate(Candidate other) {
+			transpose = other.transpose;
+			grid = other.grid;
+			System.arraycopy(other.rows, 0, rows, 0, 9);
+			count = other.count;
+			System.arraycopy(other.labels, 0, labels, 0, 10);
+			next = other.next;
+		}
+
+		boolean bandUsed(int band) {
+			for (int i = 0; i < count; i++) {
+				if (rows[i] / 3 == band) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean rowUsed(int row) {
+			for (int i = 0; i < count; i++) {
+				if (rows[i] == row) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		int key(int value) {
+			return value == 0 ? 0 : labels[value] != 0 ? labels[value] : NEW;
+		}
+	}
+
+	// the puzzle and its transpose, and ids that are the same for rows with the same squares
+	// and for bands with the same rows
+	int[][] grids = new int[2][81];
+	int[][] rowIds = new int[2][9];
+	int[][] bandIds = new int[2][3];
+
+	// the row being tried, sorted into the smallest order the candidate allows
+	int[] order = new int[9];
+	int[] keys = new int[9];
+	boolean[] starts = new boolean[9];
+	int[] slots = new int[3];
+	boolean[] groupStarts = new boolean[3];
+	int[] row = new int[9];
+	int[] labels = new int[10];
+
+	int[] best = new int[9];
+	int[] result = new int[81];
+
+	/**
+	 * @return the canonical form of the puzzle as 81 digits, with 0 for the empty squares
+	 */
+	public static String key(Puzzle puzzle) {
+		Canonical canonical = new Canonical();
+		canonical.transform(puzzle);
+		return canonical.toKey();
+	}
+
+	/**
+	 * Find a transform that takes the puzzle to its canonical form.  When the puzzle has
+	 * symmetries there are several, and one of them is returned.
+	 */
+	public Transform transform(Puzzle puzzle) {
+		if (puzzle.getOrder() != 3) {
+			throw new IllegalArgumentException("Only 9 x 9 puzzles have a canonical form");
+		}
+		for (int r = 0; r < 9; r++) {
+			for (int c = 0; c < 9; c++) {
+				int value = puzzle.isFilled(r, c) ? puzzle.getSquare(r, c) : 0;
+				grids[0][r * 9 + c] = value;
+				grids[1][c * 9 + r] = value;
+			}
+		}
+		for (int t = 0; t < 2; t++) {
+			numberRows(grids[t], rowIds[t], bandIds[t]);
+		}
+
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		candidates.add(new Candidate(false, grids[0]));
+		candidates.add(new Candidate(true, grids[1]));
+		for (int k = 0; k < 9; k++) {
+			List<Candidate> next = new ArrayList<Candidate>();
+			boolean first = true;
+			for (Candidate candidate : candidates) {
+				int t = candidate.transpose ? 1 : 0;
+				for (int r = 0; r < 9; r++) {
+					if (!isChoice(candidate, r, rowIds[t], bandIds[t])) {
+						continue;
+					}
+					arrange(candidate, r);
+					int cmp = first ? -1 : compare(row, best);
+					if (cmp > 0) {
+						continue;
+					}
+					if (cmp < 0) {
+						first = false;
+						next.clear();
+						System.arraycopy(row, 0, best, 0, 9);
+					}
+					branch(candidate, r, next);
+				}
+			}
+			System.arraycopy(best, 0, result, k * 9, 9);
+			candidates = next;
+		}
+		return toTransform(candidates.get(0));
+	}
+
+	/**
+	 * @return the canonical form found by the last transform, as in key(Puzzle)
+	 */
+	public String toKey() {
+		char[] chars = new char[81];
+		for (int i = 0; i < 81; i++) {
+			chars[i] = (char) ('0' + result[i]);
+		}
+		return new String(chars);
+	}
+
+	/*
+	 * Number the rows so that rows with the same squares get the same id, and the bands so
+	 * that bands with the same rows (in any order) get the same id
+	 */
+	static void numberRows(int[] grid, int[] rowIds, int[] bandIds) {
+		for (int r = 0; r < 9; r++) {
+			rowIds[r] = r;
+			for (int s = 0; s < r; s++) {
+				if (sameRow(grid, r, s)) {
+					rowIds[r] = rowIds[s];
+					break;
+				}
+			}
+		}
+		int[] sorted = new int[9];
+		for (int b = 0; b < 3; b++) {
+			for (int i = 0; i < 3; i++) {
+				sorted[b * 3 + i] = rowIds[b * 3 + i];
+			}
+			Arrays.sort(sorted, b * 3, b * 3 + 3);
+			bandIds[b] = b;
+			for (int a = 0; a < b; a++) {
+				if (sorted[a * 3] == sorted[b * 3] && sorted[a * 3 + 1] == sorted[b * 3 + 1]
+						&& sorted[a * 3 + 2] == sorted[b * 3 + 2]) {
+					bandIds[b] = bandIds[a];
+					break;
+				}
+			}
+		}
+	}
+
+	static boolean sameRow(int[] grid, int r, int s) {
+		for (int c = 0; c < 9; c++) {
+			if (grid[r * 9 + c] != grid[s * 9 + c]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Can row r be the next row of the candidate?  Of the rows that would leave the same
+	 * choices after them, only the first one is
+	 */
+	static boolean isChoice(Candidate candidate, int r, int[] rowIds, int[] bandIds) {
+		int k = candidate.count;
+		if (k % 3 != 0) {
+			// finish the band we are in
+			int band = candidate.rows[k - 1] / 3;
+			if (r / 3 != band || candidate.rowUsed(r)) {
+				return false;
+			}
+			for (int s = band * 3; s < r; s++) {
+				if (!candidate.rowUsed(s) && rowIds[s] == rowIds[r]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (candidate.bandUsed(r / 3)) {
+			return false;
+		}
+		for (int s = 0; s < r; s++) {
+			if (!candidate.bandUsed(s / 3) && bandIds[s / 3] == bandIds[r / 3] && rowIds[s] == rowIds[r]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Sort row r into the smallest order the candidate's blocks and groups allow.  Fills in
+	 * order, keys and row, and the new block and group starts
+	 */
+	void arrange(Candidate candidate, int r) {
+		int[] grid = candidate.grid;
+		for (int p = 0; p < 9; p++) {
+			order[p] = candidate.cols[p];
+			keys[p] = candidate.key(grid[r * 9 + order[p]]);
+		}
+		// sort each block, smallest key first.  Blocks don't cross stacks
+		for (int p = 1; p < 9; p++) {
+			if (candidate.colStart[p]) {
+				continue;
+			}
+			int col = order[p];
+			int key = keys[p];
+			int q = p;
+			while (!candidate.colStart[q] && keys[q - 1] > key) {
+				order[q] = order[q - 1];
+				keys[q] = keys[q - 1];
+				q--;
+			}
+			order[q] = col;
+			keys[q] = key;
+		}
+		// a block only stays together over empty squares
+		for (int p = 0; p < 9; p++) {
+			starts[p] = candidate.colStart[p] || keys[p] != 0 || keys[p - 1] != 0;
+		}
+		// sort each group of stacks by their keys
+		for (int s = 0; s < 3; s++) {
+			slots[s] = s;
+		}
+		for (int s = 1; s < 3; s++) {
+			if (candidate.stackStart[s]) {
+				continue;
+			}
+			int slot = slots[s];
+			int q = s;
+			while (!candidate.stackStart[q] && compareSlots(slots[q - 1], slot) > 0) {
+				slots[q] = slots[q - 1];
+				q--;
+			}
+			slots[q] = slot;
+		}
+		// stacks that tie over empty squares stay together.  Stacks that tie on new digits are
+		// tried in both orders
+		for (int s = 0; s < 3; s++) {
+			groupStarts[s] = candidate.stackStart[s] || compareSlots(slots[s - 1], slots[s]) != 0
+					|| !isEmpty(slots[s]);
+		}
+		// number the digits in the new order
+		System.arraycopy(candidate.labels, 0, labels, 0, 10);
+		int next = candidate.next;
+		for (int p = 0; p < 9; p++) {
+			int value = grid[r * 9 + order[slots[p / 3] * 3 + p % 3]];
+			if (value != 0 && labels[value] == 0) {
+				labels[value] = next++;
+			}
+			row[p] = labels[value];
+		}
+	}
+
+	int compareSlots(int a, int b) {
+		for (int i = 0; i < 3; i++) {
+			if (keys[a * 3 + i] != keys[b * 3 + i]) {
+				return keys[a * 3 + i] - keys[b * 3 + i];
+			}
+		}
+		return 0;
+	}
+
+	boolean isEmpty(int slot) {
+		return keys[slot * 3] == 0 && keys[slot * 3 + 1] == 0 && keys[slot * 3 + 2] == 0;
+	}
+
+	static int compare(int[] a, int[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) {
+				return a[i] - b[i];
+			}
+		}
+		return 0;
+	}
+
+	/*
+	 * Add the candidates that follow from picking row r, as arranged.  Digits seen for the
+	 * first time that tie, and stacks that tie on them, are tried in every order
+	 */
+	void branch(Candidate candidate, int r, List<Candidate> next) {
+		// the runs to try in every order: stack runs as { -1, start, length }, and column runs
+		// as { stack, start, length } in the stack's own positions
+		List<int[]> runs = new ArrayList<int[]>();
+		for (int s = 0; s < 3; s++) {
+			int end = s + 1;
+			while (end < 3 && !candidate.stackStart[end] && !isEmpty(slots[s]) && compareSlots(slots[s], slots[end]) == 0) {
+				end++;
+			}
+			if (end - s > 1) {
+				runs.add(new int[] { -1, s, end - s });
+			}
+			s = end - 1;
+		}
+		for (int p = 0; p < 9; p++) {
+			int end = p + 1;
+			while (end < 9 && !candidate.colStart[end] && keys[p] == NEW && keys[end] == NEW) {
+				end++;
+			}
+			if (end - p > 1) {
+				runs.add(new int[] { p / 3, p % 3, end - p });
+			}
+			p = end - 1;
+		}
+		int[] choice = new int[runs.size()];
+		do {
+			next.add(child(candidate, r, runs, choice));
+		} while (advance(runs, choice));
+	}
+
+	static boolean advance(List<int[]> runs, int[] choice) {
+		for (int i = 0; i < choice.length; i++) {
+			if (++choice[i] < PERMS[runs.get(i)[2]].length) {
+				return true;
+			}
+			choice[i] = 0;
+		}
+		return false;
+	}
+
+	Candidate child(Candidate candidate, int r, List<int[]> runs, int[] choice) {
+		Candidate child = new Candidate(candidate);
+		child.rows[child.count++] = r;
+		int[] stackOrder = slots.clone();
+		int[] colOrder = order.clone();
+		for (int i = 0; i < choice.length; i++) {
+			int[] run = runs.get(i);
+			int[] perm = PERMS[run[2]][choice[i]];
+			if (run[0] < 0) {
+				for (int j = 0; j < run[2]; j++) {
+					stackOrder[run[1] + j] = slots[run[1] + perm[j]];
+				}
+			}
+			else {
+				int base = run[0] * 3 + run[1];
+				for (int j = 0; j < run[2]; j++) {
+					colOrder[base + j] = order[base + perm[j]];
+				}
+			}
+		}
+		for (int s = 0; s < 3; s++) {
+			int slot = stackOrder[s];
+			child.stackStart[s] = groupStarts[s];
+			for (int i = 0; i < 3; i++) {
+				child.cols[s * 3 + i] = colOrder[slot * 3 + i];
+				child.colStart[s * 3 + i] = starts[slot * 3 + i];
+			}
+		}
+		for (int p = 0; p < 9; p++) {
+			int value = candidate.grid[r * 9 + child.cols[p]];
+			if (value != 0 && child.labels[value] == 0) {
+				child.labels[value] = child.next++;
+			}
+		}
+		return child;
+	}
+
+	/*
+	 * The whole transform of a finished candidate.  Digits that aren't in the puzzle get the
+	 * numbers that are left, in order
+	 */
+	static Transform toTransform(Candidate candidate) {
+		int[] digits = candidate.labels.clone();
+		int next = candidate.next;
+		for (int d = 1; d < 10; d++) {
+			if (digits[d] == 0) {
+				digits[d] = next++;
+			}
+		}
+		return new Transform(candidate.transpose, candidate.rows, candidate.cols, digits);
+	}
+}
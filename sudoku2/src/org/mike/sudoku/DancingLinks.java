@@ -0,0 +1,281 @@
+package org.mike.sudoku;
+
+/**
+ * Exact cover solver using Knuth's dancing links (Algorithm X).
+ * 
+ * Each of the 729 rows of the matrix places one digit in one square.  The 324 columns are
+ * the constraints:  every square has a digit, and every row, column and box has each digit
+ * once.  The links are kept in int arrays that are built once, and every solve puts them back
+ * the way it found them, so an instance can be reused for any number of puzzles.  An instance
+ * is not thread safe.
+ */
+public class DancingLinks implements Engine {
+	static final int COLUMNS = 324;
+	static final int ROWS = 729;
+	static final int ROOT = 0;
+	static final int NODES = 1 + COLUMNS + ROWS * 4;
+
+	// the links.  Node 0 is the root, 1 to 324 are the column headers
+	int[] left = new int[NODES];
+	int[] right = new int[NODES];
+	int[] up = new int[NODES];
+	int[] down = new int[NODES];
+	int[] column = new int[NODES];
+	// for a header, the number of nodes in the column.  For a node, its matrix row
+	int[] size = new int[NODES];
+	int[] rowOf = new int[NODES];
+	// the first node of each matrix row
+	int[] firstNode = new int[ROWS];
+
+	// which columns have been covered by the givens
+	boolean[] covered = new boolean[COLUMNS + 1];
+	int[] givens = new int[81];
+	int givenCount;
+
+	// the rows chosen by the search, and the first solution found
+	int[] chosen = new int[81];
+	int[] solution = new int[81];
+	int solutions;
+	int limit;
+	int nodes;
+	// the limits of the search going on now, or null
+	Budget budget;
+	boolean outOfBudget;
+
+	public DancingLinks() {
+		for (int c = 0; c <= COLUMNS; c++) {
+			left[c] = c == 0 ? COLUMNS : c - 1;
+			right[c] = c == COLUMNS ? 0 : c + 1;
+			up[c] = c;
+			down[c] = c;
+			column[c] = c;
+		}
+		int node = COLUMNS + 1;
+		for (int row = 0; row < ROWS; row++) {
+			int cell = row / 9;
+			int digit = row % 9;
+			int r = cell / 9;
+			int c = cell % 9;
+			int b = (r / 3) * 3 + c / 3;
+			int[] cols = { 1 + cell, 1 + 81 + r * 9 + digit, 1 + 162 + c * 9 + digit, 1 + 243 + b * 9 + digit };
+			firstNode[row] = node;
+			for (int i = 0; i < 4; i++) {
+				int n = node + i;
+				int col = cols[i];
+				column[n] = col;
+				rowOf[n] = row;
+				up[n] = up[col];
+				down[n] = col;
+				down[up[col]] = n;
+				up[col] = n;
+				size[col]++;
+				left[n] = node + (i + 3) % 4;
+				right[n] = node + (i + 1) % 4;
+			}
+			node += 4;
+		}
+	}
+
+	void cover(int c) {
+		right[left[c]] = right[c];
+		left[right[c]] = left[c];
+		for (int i = down[c]; i != c; i = down[i]) {
+			for (int j = right[i]; j != i; j = right[j]) {
+				down[up[j]] = down[j];
+				up[down[j]] = up[j];
+				size[column[j]]--;
+			}
+		}
+	}
+
+	void uncover(int c) {
+		for (int i = up[c]; i != c; i = up[i]) {
+			for (int j = left[i]; j != i; j = left[j]) {
+				size[column[j]]++;
+				down[up[j]] = j;
+				up[down[j]] = j;
+			}
+		}
+		right[left[c]] = c;
+		left[right[c]] = c;
+	}
+
+	/*
+	 * Cover the columns of the givens.  Returns false if two givens clash
+	 */
+	boolean coverGivens(Puzzle puzzle) {
+		givenCount = 0;
+		for (int cell = 0; cell < 81; cell++) {
+			int r = cell / 9;
+			int c = cell % 9;
+			if (!puzzle.isFilled(r, c)) {
+				continue;
+			}
+			int first = firstNode[cell * 9 + puzzle.getSquare(r, c) - 1];
+			int j = first;
+			do {
+				if (covered[column[j]]) {
+					return false;
+				}
+				j = right[j];
+			} while (j != first);
+			do {
+				covered[column[j]] = true;
+				cover(column[j]);
+				j = right[j];
+			} while (j != first);
+			givens[givenCount++] = first;
+		}
+		return true;
+	}
+
+	/*
+	 * Put the links back the way they were before coverGivens
+	 */
+	void uncoverGivens() {
+		while (givenCount > 0) {
+			int first = givens[--givenCount];
+			int j = left[first];
+			do {
+				uncover(column[j]);
+				covered[column[j]] = false;
+				j = left[j];
+			} while (j != left[first]);
+		}
+	}
+
+	/*
+	 * Recursive search.  Returns true when we hit the solution limit
+	 */
+	boolean search(int k) {
+		nodes++;
+		if (budget != null && !budget.node()) {
+			outOfBudget = true;
+			return true;
+		}
+		if (right[ROOT] == ROOT) {
+			if (solutions++ == 0) {
+				for (int i = 0; i < k; i++) {
+					solution[i] = rowOf[chosen[i]];
+				}
+				for (int i = k; i < 81; i++) {
+					solution[i] = -1;
+				}
+			}
+			return solutions >= limit;
+		}
+		// choose the column with the fewest rows
+		int c = right[ROOT];
+		for (int j = right[c]; j != ROOT; j = right[j]) {
+			if (size[j] < size[c]) {
+				c = j;
+			}
+		}
+		if (size[c] == 0) {
+			return false;
+		}
+		boolean done = false;
+		cover(c);
+		for (int r = down[c]; r != c && !done; r = down[r]) {
+			chosen[k] = r;
+			for (int j = right[r]; j != r; j = right[j]) {
+				cover(column[j]);
+			}
+			done = search(k + 1);
+			for (int j = left[r]; j != r; j = left[j]) {
+				uncover(column[j]);
+			}
+		}
+		uncover(c);
+		return done;
+	}
+
+	/**
+	 * Count the solutions of the puzzle, stopping once we reach the limit.  The puzzle is not
+	 * changed.
+	 * @param puzzle puzzle to check
+	 * @param limit stop searching after this many solutions
+	 * @return the number of solutions, at most limit
+	 */
+	public int countSolutions(Puzzle puzzle, int limit) {
+		if (puzzle.getOrder() != 3) {
+			throw new IllegalArgumentException("Dancing links only solves 9 x 9 puzzles, see LargeSolver");
+		}
+		solutions = 0;
+		nodes = 0;
+		this.limit = limit;
+		outOfBudget = false;
+		if (coverGivens(puzzle)) {
+			search(0);
+		}
+		uncoverGivens();
+		return solutions;
+	}
+
+	/**
+	 * Count the solutions, giving up when the budget runs out.  The links are put back either
+	 * way, and storeSolution gives the first solution if one was found in time.
+	 * @param budget the limits of the search, or null for none
+	 * @throws BudgetExceededException the budget ran out before the count was known
+	 */
+	public int countSolutions(Puzzle puzzle, int limit, Budget budget) throws BudgetExceededException {
+		this.budget = budget;
+		try {
+			countSolutions(puzzle, limit);
+		} finally {
+			this.budget = null;
+		}
+		if (outOfBudget) {
+			throw new BudgetExceededException(budget);
+		}
+		return solutions;
+	}
+
+	/**
+	 * Check that the puzzle has exactly one solution.  This stops as soon as it finds a
+	 * second one, and does not allocate anything.
+	 * @param puzzle puzzle to check
+	 * @return true if there is one solution
+	 */
+	public boolean isUnique(Puzzle puzzle) {
+		return countSolutions(puzzle, 2) == 1;
+	}
+
+	/**
+	 * Solve the puzzle.  It has to have exactly one solution
+	 */
+	public void solve(Puzzle puzzle) throws CantSolveException {
+		solve(puzzle, null);
+	}
+
+	public void solve(Puzzle puzzle, Budget budget) throws CantSolveException {
+		int count = countSolutions(puzzle, 2, budget);
+		if (count == 0) {
+			throw new InvalidPuzzleException("Puzzle has no solution");
+		}
+		if (count > 1) {
+			throw new CantSolveException("Puzzle has more than one solution");
+		}
+		storeSolution(puzzle);
+	}
+
+	/**
+	 * Fill in the first solution found by the last search
+	 */
+	public void storeSolution(Puzzle puzzle) {
+		if (solutions == 0) {
+			return;
+		}
+		for (int i = 0; i < 81 && solution[i] >= 0; i++) {
+			int row = solution[i];
+			puzzle.setSquare(row / 81, (row / 9) % 9, row % 9 + 1);
+		}
+	}
+
+	/**
+	 * @return the number of search nodes the last solve visited
+	 */
+	public int getSolveTries() {
+		return nodes;
+	}
+}
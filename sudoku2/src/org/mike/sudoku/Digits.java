@@ -0,0 +1,50 @@
+package org.mike.sudoku;
+
+/*
+ * Helpers for 9-bit digit masks.  Digit d (1 to 9) is stored in bit d - 1, so the full
+ * set of digits is 0x1ff and the empty set is 0.
+ */
+final class Digits {
+	static final int ALL = 0x1ff;
+
+	private Digits() {
+	}
+
+	/*
+	 * the mask for a single digit.  0 (an empty square) maps to the empty mask
+	 */
+	static int bit(int digit) {
+		return digit > 0 && digit < 10 ? 1 << (digit - 1) : 0;
+	}
+
+	static int count(int mask) {
+		return Integer.bitCount(mask);
+	}
+
+	static boolean isSingle(int mask) {
+		return mask != 0 && (mask & (mask - 1)) == 0;
+	}
+
+	/*
+	 * the lowest digit in the mask, 0 if the mask is empty
+	 */
+	static int first(int mask) {
+		return mask == 0 ? 0 : Integer.numberOfTrailingZeros(mask) + 1;
+	}
+
+	/*
+	 * Format like a set of integers, e.g. [1, 4, 9]
+	 */
+	static String toString(int mask) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int d = 1; d <= 9; d++) {
+			if ((mask & bit(d)) != 0) {
+				if (sb.length() > 1) {
+					sb.append(", ");
+				}
+				sb.append(d);
+			}
+		}
+		return sb.append(']').toString();
+	}
+}
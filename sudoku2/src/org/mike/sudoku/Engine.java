@@ -0,0 +1,29 @@
+package org.mike.sudoku;
+
+/**
+ * A way of solving a puzzle.  The logic Solver only uses deductions a person would make,
+ * DancingLinks searches the whole puzzle.  Both take the same Puzzle, so the Builder and
+ * the pages can pick either one.
+ */
+public interface Engine {
+
+	/**
+	 * Solve the puzzle in place.
+	 * @param puzzle the puzzle to solve.  It is filled in with the solution
+	 * @throws CantSolveException the engine could not find exactly one solution
+	 */
+	void solve(Puzzle puzzle) throws CantSolveException;
+
+	/**
+	 * Solve the puzzle in place, within a budget
+	 * @param budget the limits of the solve, or null for none
+	 * @throws BudgetExceededException the budget ran out.  What was found is kept
+	 * @throws CantSolveException the engine could not find exactly one solution
+	 */
+	void solve(Puzzle puzzle, Budget budget) throws CantSolveException;
+
+	/**
+	 * @return how much work the last solve took.  What is counted depends on the engine
+	 */
+	int getSolveTries();
+}
@@ -0,0 +1,179 @@
+package org.mike.sudoku;
+
+import java.util.Random;
+
+/**
+ * Makes random full grids by backtracking.
+ *
+ * The three boxes on the diagonal don't share a row or column, so they are filled with
+ * random permutations first.  The rest is a depth first search that fills the square with
+ * the fewest candidates next, trying its digits in random order.  The candidates come from
+ * one used digit mask per row, column and box, so a step is a few ands.  With the diagonal
+ * given the search hardly ever backs up.  Once in a while it wanders into a dead end that
+ * takes thousands of backtracks to get out of, so after MAX_BACKTRACKS it starts over from
+ * a new diagonal instead, which bounds the time.  Every grid it returns is valid.
+ *
+ * An instance reuses its arrays and is not thread safe.
+ */
+public class GridGenerator {
+	// backtracks before a search gives up and starts over
+	static int MAX_BACKTRACKS = 100;
+
+	Random random;
+
+	// the digits used in each row, column and box, as masks
+	int[] rowUsed = new int[9];
+	int[] colUsed = new int[9];
+	int[] boxUsed = new int[9];
+	// the grid, 0 for empty
+	int[] grid = new int[81];
+	int backtracks;
+	int restarts;
+	// backtracks left before this search starts over
+	int backtracksLeft;
+
+	public GridGenerator() {
+		this(new Random());
+	}
+
+	public GridGenerator(Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * @return a new random full grid, as 81 digits in row order
+	 */
+	public int[] generate() {
+		backtracks = 0;
+		restarts = 0;
+		while (true) {
+			clear();
+			for (int box = 0; box < 9; box += 4) {
+				fillBox(box);
+			}
+			backtracksLeft = MAX_BACKTRACKS;
+			if (search()) {
+				return grid.clone();
+			}
+			restarts++;
+		}
+	}
+
+	/**
+	 * @return a new random full grid as a puzzle
+	 */
+	public Puzzle generatePuzzle() {
+		int[] cells = generate();
+		Puzzle puzzle = new Puzzle();
+		for (int cell = 0; cell < 81; cell++) {
+			puzzle.setSquare(cell / 9, cell % 9, cells[cell]);
+		}
+		return puzzle;
+	}
+
+	/**
+	 * @return the number of times the last generate had to undo a digit
+	 */
+	public int getBacktracks() {
+		return backtracks;
+	}
+
+	/**
+	 * @return the number of times the last generate had to start over
+	 */
+	public int getRestarts() {
+		return restarts;
+	}
+
+	void clear() {
+		for (int i = 0; i < 9; i++) {
+			rowUsed[i] = 0;
+			colUsed[i] = 0;
+			boxUsed[i] = 0;
+		}
+		for (int cell = 0; cell < 81; cell++) {
+			grid[cell] = 0;
+		}
+	}
+
+	void set(int cell, int digit) {
+		int bit = Digits.bit(digit);
+		grid[cell] = digit;
+		rowUsed[CandidateGrid.row(cell)] |= bit;
+		colUsed[CandidateGrid.col(cell)] |= bit;
+		boxUsed[CandidateGrid.box(cell)] |= bit;
+	}
+
+	void unset(int cell) {
+		int bit = ~Digits.bit(grid[cell]);
+		grid[cell] = 0;
+		rowUsed[CandidateGrid.row(cell)] &= bit;
+		colUsed[CandidateGrid.col(cell)] &= bit;
+		boxUsed[CandidateGrid.box(cell)] &= bit;
+	}
+
+	int candidates(int cell) {
+		return Digits.ALL & ~(rowUsed[CandidateGrid.row(cell)] | colUsed[CandidateGrid.col(cell)]
+				| boxUsed[CandidateGrid.box(cell)]);
+	}
+
+	/*
+	 * Fill a box with a random permutation of the digits
+	 */
+	void fillBox(int box) {
+		int[] cells = CandidateGrid.UNITS[18 + box];
+		int[] digits = { 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+		for (int i = 8; i >= 0; i--) {
+			int j = random.nextInt(i + 1);
+			int d = digits[j];
+			digits[j] = digits[i];
+			digits[i] = d;
+			set(cells[i], d);
+		}
+	}
+
+	/*
+	 * Fill the empty squares.  Returns false if they can't be filled, or if we have backed up
+	 * too often
+	 */
+	boolean search() {
+		int best = -1;
+		int bestCount = 10;
+		for (int cell = 0; cell < 81; cell++) {
+			if (grid[cell] == 0) {
+				int count = Integer.bitCount(candidates(cell));
+				if (count < bestCount) {
+					best = cell;
+					bestCount = count;
+					if (count <= 1) {
+						break;
+					}
+				}
+			}
+		}
+		if (best < 0) {
+			return true;
+		}
+		int mask = candidates(best);
+		while (mask != 0) {
+			// a random candidate that hasn't been tried
+			int pick = random.nextInt(Integer.bitCount(mask));
+			int bit = mask;
+			for (int i = 0; i < pick; i++) {
+				bit &= bit - 1;
+			}
+			bit &= -bit;
+			mask &= ~bit;
+			set(best, Integer.numberOfTrailingZeros(bit) + 1);
+			if (search()) {
+				return true;
+			}
+			unset(best);
+			backtracks++;
+			if (--backtracksLeft < 0) {
+				return false;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,59 @@
+package org.mike.sudoku;
+
+/**
+ * A digit that fits in only one square of a row, column or box goes there.  Only the units
+ * on the grid's work queue are checked.
+ */
+public class HiddenSingles implements Technique {
+
+	public String getName() {
+		return "hidden single";
+	}
+
+	public int getCost() {
+		return 2;
+	}
+
+	public int apply(CandidateGrid grid) {
+		int made = 0;
+		int unit;
+		while ((unit = grid.nextUnit()) >= 0) {
+			int placed = 0;
+			int once = 0;
+			int twice = 0;
+			for (int i = 0; i < 9; i++) {
+				int cell = CandidateGrid.unitCell(unit, i);
+				int choices = grid.getCandidates(cell);
+				if (grid.getValue(cell) != 0) {
+					placed |= choices;
+				}
+				else {
+					twice |= once & choices;
+					once |= choices;
+				}
+			}
+			if ((placed | once) != Digits.ALL) {
+				// some digit has no square left in this unit
+				grid.setContradiction();
+				return made;
+			}
+
+			int hidden = once & ~twice & ~placed;
+			while (hidden != 0) {
+				int bit = hidden & -hidden;
+				hidden &= ~bit;
+				for (int i = 0; i < 9; i++) {
+					int cell = CandidateGrid.unitCell(unit, i);
+					if (grid.getValue(cell) == 0 && (grid.getCandidates(cell) & bit) != 0) {
+						made++;
+						if (!grid.assign(cell, Digits.first(bit))) {
+							return made;
+						}
+						break;
+					}
+				}
+			}
+		}
+		return made;
+	}
+}
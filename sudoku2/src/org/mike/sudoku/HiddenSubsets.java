@@ -0,0 +1,110 @@
+package org.mike.sudoku;
+
+/**
+ * Hidden pairs, triples and quads.  If n digits of a unit can only go in the same n squares,
+ * those squares can't hold any other digit.
+ * 
+ * This is the same search as NakedSubsets, turned around:  for each digit we keep a mask of
+ * the squares of the unit it can go in, and combine digits while the union of their squares
+ * stays at n or below.  An instance must not be shared between threads.
+ */
+public class HiddenSubsets implements Technique {
+	int size;
+
+	// for each digit still to place in the unit, the squares (unit indexes) it can go in
+	int[] places = new int[9];
+	int[] digits = new int[9];
+	int count;
+	int unit;
+	// eliminations made by this application
+	int made;
+
+	/**
+	 * @param size number of digits in the subset, 2 to 4
+	 */
+	public HiddenSubsets(int size) {
+		this.size = size;
+	}
+
+	public String getName() {
+		return "hidden " + NakedSubsets.NAMES[size];
+	}
+
+	public int getCost() {
+		return 10 * size + 5;
+	}
+
+	public int apply(CandidateGrid grid) {
+		made = 0;
+		for (unit = 0; unit < 27 && !grid.hasContradiction(); unit++) {
+			int placed = 0;
+			for (int i = 0; i < 9; i++) {
+				int cell = CandidateGrid.unitCell(unit, i);
+				if (grid.getValue(cell) != 0) {
+					placed |= grid.getCandidates(cell);
+				}
+			}
+			count = 0;
+			for (int d = 1; d <= 9; d++) {
+				int bit = Digits.bit(d);
+				if ((placed & bit) != 0) {
+					continue;
+				}
+				int where = 0;
+				for (int i = 0; i < 9; i++) {
+					if ((grid.getCandidates(CandidateGrid.unitCell(unit, i)) & bit) != 0) {
+						where |= 1 << i;
+					}
+				}
+				places[count] = where;
+				digits[count] = bit;
+				count++;
+			}
+			// we need at least one digit outside the subset
+			if (count > size) {
+				search(grid, 0, 0, 0, 0);
+			}
+		}
+		return made;
+	}
+
+	/*
+	 * Add digits from start on to the subset.  union is the squares they can go in
+	 */
+	void search(CandidateGrid grid, int start, int depth, int union, int digitMask) {
+		for (int i = start; i < count; i++) {
+			int squares = Digits.count(places[i]);
+			if (squares < 2 || squares > size) {
+				continue;
+			}
+			int u = union | places[i];
+			if (Digits.count(u) > size) {
+				continue;
+			}
+			if (depth + 1 < size) {
+				search(grid, i + 1, depth + 1, u, digitMask | digits[i]);
+			}
+			else if (Digits.count(u) == size) {
+				eliminate(grid, u, digitMask | digits[i]);
+			}
+		}
+	}
+
+	void eliminate(CandidateGrid grid, int squares, int keep) {
+		for (int i = 0; i < 9; i++) {
+			int cell = CandidateGrid.unitCell(unit, i);
+			if ((squares & 1 << i) != 0 && (grid.getCandidates(cell) & ~keep) != 0) {
+				made += Digits.count(grid.getCandidates(cell) & ~keep);
+				if (!grid.eliminate(cell, ~keep & Digits.ALL)) {
+					return;
+				}
+			}
+		}
+		// the other digits just lost these squares
+		for (int j = 0; j < count; j++) {
+			if ((digits[j] & keep) == 0) {
+				places[j] &= ~squares;
+			}
+		}
+	}
+}
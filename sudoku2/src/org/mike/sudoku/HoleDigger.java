@@ -0,0 +1,217 @@
+package org.mike.sudoku;
+
+import java.util.Random;
+
+/**
+ * Makes a puzzle from a full grid by digging holes.  We start with every square shown and
+ * take the clues away one at a time, in random order.  After each one the engine has to
+ * solve what is left, and if it can't, or the logic solver needs a harder technique than
+ * we allow, the clue goes back.  A clue that had to go back never comes out again, since
+ * taking more clues away only makes the puzzle harder, so a puzzle costs at most one solve
+ * per square.
+ *
+ * Symmetric digging takes the clues away in pairs, a square and its mirror through the
+ * center, so the puzzle looks like the ones in the papers.
+ *
+ * When the engine is DancingLinks all that counts is that the puzzle stays unique, and the
+ * UniquenessCheck does that much faster than solving again.  Digging down to the default
+ * minimum then gives a minimal puzzle: taking any clue away from it gives it a second solution,
+ * since each clue left had that when it was tried, and taking more clues away never takes
+ * a solution away.
+ *
+ * An instance reuses its puzzles and is not thread safe.
+ */
+public class HoleDigger {
+	Engine engine;
+	Random random;
+	Budget budget;
+	boolean symmetric;
+	// stop digging at this many clues
+	int minClues = 17;
+	// the hardest level allowed, an index into Rating.LEVELS
+	int maxLevel = Rating.LEVELS.length - 1;
+
+	// the squares shown, and a copy for the engine to fill in
+	Puzzle clues = new Puzzle();
+	Puzzle scratch = new Puzzle();
+	// when all we want is a unique puzzle, this checks instead of the engine
+	UniquenessCheck unique;
+	int solves;
+	int restored;
+
+	/**
+	 * @param engine the engine that has to solve the puzzle, so the logic Solver for a
+	 * puzzle that can be done by hand, or DancingLinks for any unique one
+	 * @param random where the digging order comes from
+	 */
+	public HoleDigger(Engine engine, Random random) {
+		this.engine = engine;
+		this.random = random;
+		if (engine instanceof DancingLinks) {
+			unique = new UniquenessCheck();
+		}
+	}
+
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	public void setSymmetric(boolean symmetric) {
+		this.symmetric = symmetric;
+	}
+
+	public int getMinClues() {
+		return minClues;
+	}
+
+	/**
+	 * Stop digging when this many clues are left.  The puzzle can end up with more if no
+	 * more of them can come out
+	 */
+	public void setMinClues(int minClues) {
+		this.minClues = minClues;
+	}
+
+	public String getMaxLevel() {
+		return Rating.LEVELS[maxLevel];
+	}
+
+	/**
+	 * The hardest level the logic solver may need, see Rating.getLevel.  Other engines
+	 * don't rate puzzles, so this only counts with the Solver
+	 */
+	public void setMaxLevel(String level) {
+		for (int i = 0; i < Rating.LEVELS.length; i++) {
+			if (Rating.LEVELS[i].equals(level)) {
+				maxLevel = i;
+				return;
+			}
+		}
+		throw new IllegalArgumentException("No level " + level);
+	}
+
+	/**
+	 * @param budget the limits of each dig, or null for none.  Every solve is charged to it
+	 */
+	public void setBudget(Budget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Dig the holes
+	 * @param grid a full grid, 81 digits in row order
+	 * @return which squares are still shown, in row order
+	 * @throws BudgetExceededException the budget ran out first
+	 */
+	public boolean[] dig(int[] grid) throws BudgetExceededException {
+		solves = 0;
+		restored = 0;
+		boolean[] shown = new boolean[81];
+		for (int cell = 0; cell < 81; cell++) {
+			shown[cell] = true;
+			clues.setSquare(cell / 9, cell % 9, grid[cell]);
+		}
+		int count = 81;
+		if (unique != null) {
+			unique.load(grid, shown);
+		}
+
+		// the order to dig in.  With symmetry the center is its own mirror, and each of the
+		// other 40 squares stands for itself and its mirror
+		int squares = symmetric ? 41 : 81;
+		int[] order = new int[squares];
+		for (int i = 0; i < squares; i++) {
+			order[i] = i;
+		}
+		for (int i = squares - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int cell = order[j];
+			order[j] = order[i];
+			order[i] = cell;
+		}
+
+		for (int cell : order) {
+			int mirror = symmetric ? 80 - cell : cell;
+			int taken = cell == mirror ? 1 : 2;
+			if (count - taken < minClues) {
+				continue;
+			}
+			clues.setSquare(cell / 9, cell % 9, 0);
+			clues.setSquare(mirror / 9, mirror % 9, 0);
+			if (unique != null ? take(cell, mirror, grid) : check()) {
+				shown[cell] = false;
+				shown[mirror] = false;
+				count -= taken;
+			}
+			else {
+				clues.setSquare(cell / 9, cell % 9, grid[cell]);
+				clues.setSquare(mirror / 9, mirror % 9, grid[mirror]);
+				restored++;
+			}
+		}
+		return shown;
+	}
+
+	/*
+	 * Take the clues out if the puzzle stays unique.  This is all dancing links would check,
+	 * but it doesn't start from scratch every time
+	 */
+	boolean take(int cell, int mirror, int[] grid) throws BudgetExceededException {
+		solves++;
+		if (!unique.remove(cell, budget)) {
+			return false;
+		}
+		if (mirror != cell && !unique.remove(mirror, budget)) {
+			unique.restore(cell);
+			return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Can the engine still do the puzzle?  Solving means exactly one solution for every
+	 * engine, and the logic solver's techniques only make sound deductions, so there is no
+	 * separate uniqueness check
+	 */
+	boolean check() throws BudgetExceededException {
+		if (budget != null) {
+			budget.verify();
+		}
+		for (int cell = 0; cell < 81; cell++) {
+			scratch.setSquare(cell / 9, cell % 9, clues.getSquare(cell / 9, cell % 9));
+		}
+		solves++;
+		try {
+			engine.solve(scratch, budget);
+		}
+		catch (BudgetExceededException e) {
+			throw e;
+		}
+		catch (CantSolveException e) {
+			return false;
+		}
+		if (engine instanceof Solver && maxLevel < Rating.LEVELS.length - 1) {
+			String level = ((Solver) engine).getRating().getLevel();
+			for (int i = maxLevel + 1; i < Rating.LEVELS.length; i++) {
+				if (Rating.LEVELS[i].equals(level)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of solves the last dig took
+	 */
+	public int getSolves() {
+		return solves;
+	}
+
+	/**
+	 * @return the number of clues the last dig had to put back
+	 */
+	public int getRestored() {
+		return restored;
+	}
+}
@@ -0,0 +1,33 @@
+package org.mike.sudoku;
+
+/**
+ * The puzzle contradicts itself, so no engine can solve it
+ */
+public class InvalidPuzzleException extends CantSolveException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4620716253397104185L;
+
+	public InvalidPuzzleException() {
+	}
+
+	public InvalidPuzzleException(String message) {
+		super(message);
+	}
+
+	public InvalidPuzzleException(Throwable cause) {
+		super(cause);
+	}
+
+	public InvalidPuzzleException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public InvalidPuzzleException(String message, Throwable cause,
+			boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+
+}
@@ -0,0 +1,382 @@
+package org.mike.sudoku;
+
+/**
+ * A solver for boards of any order (see Puzzle), meant for 16 x 16 and 25 x 25 puzzles
+ * that the 9 x 9 Solver and DancingLinks don't handle.
+ *
+ * The candidates of each square are a long mask, with digit d in bit d - 1.  Placing a
+ * digit removes it from the peers of the square, and every unit that changed is checked for
+ * digits with no place left (a contradiction) or only one place (a hidden single).  When
+ * propagation is stuck, the search guesses on the square with the fewest candidates.  Each
+ * search level has its own copy of the candidates, so backing up is free.
+ *
+ * The unit and peer tables are built once per order and shared.  An instance reuses its
+ * arrays for every puzzle of the same order, and is not thread safe.
+ */
+public class LargeSolver implements Engine {
+
+	/*
+	 * The layout of a board of one order.  Units are numbered rows, then columns, then boxes
+	 */
+	static class Geometry {
+		int order;
+		int size;
+		int cells;
+		long all;
+		int[][] units;
+		int[][] cellUnits;
+		int[][] peers;
+
+		Geometry(int order) {
+			this.order = order;
+			size = order * order;
+			cells = size * size;
+			all = (1L << size) - 1;
+			units = new int[3 * size][size];
+			cellUnits = new int[cells][3];
+			for (int cell = 0; cell < cells; cell++) {
+				int row = cell / size;
+				int col = cell % size;
+				int box = (row / order) * order + col / order;
+				int boxIndex = (row % order) * order + col % order;
+				units[row][col] = cell;
+				units[size + col][row] = cell;
+				units[2 * size + box][boxIndex] = cell;
+				cellUnits[cell][0] = row;
+				cellUnits[cell][1] = size + col;
+				cellUnits[cell][2] = 2 * size + box;
+			}
+			peers = new int[cells][2 * (size - 1) + (order - 1) * (order - 1)];
+			boolean[] seen = new boolean[cells];
+			for (int cell = 0; cell < cells; cell++) {
+				int n = 0;
+				seen[cell] = true;
+				for (int u : cellUnits[cell]) {
+					for (int other : units[u]) {
+						if (!seen[other]) {
+							seen[other] = true;
+							peers[cell][n++] = other;
+						}
+					}
+				}
+				seen[cell] = false;
+				for (int peer : peers[cell]) {
+					seen[peer] = false;
+				}
+			}
+		}
+	}
+
+	static final Geometry[] GEOMETRIES = new Geometry[Puzzle.MAX_ORDER + 1];
+
+	static synchronized Geometry geometry(int order) {
+		if (GEOMETRIES[order] == null) {
+			GEOMETRIES[order] = new Geometry(order);
+		}
+		return GEOMETRIES[order];
+	}
+
+	Geometry geometry;
+	// the candidates at each search depth.  Allocated as the search gets there
+	long[][] levels;
+
+	// squares cut down to one candidate, whose digit hasn't been removed from the peers yet.
+	// A square is cut down once, so cells slots are enough
+	int[] pending;
+	int pendingCount;
+
+	// units to check, each at most once
+	int[] queue;
+	boolean[] queued;
+	int head;
+	int queueSize;
+
+	long[] solution;
+	int solutions;
+	int limit;
+	int nodes;
+	// the limits of the search going on now, or null
+	Budget budget;
+	boolean outOfBudget;
+
+	/*
+	 * Get the arrays ready for a board of this order
+	 */
+	void setup(int order) {
+		if (geometry != null && geometry.order == order) {
+			return;
+		}
+		geometry = geometry(order);
+		levels = new long[geometry.cells + 1][];
+		pending = new int[geometry.cells];
+		queue = new int[3 * geometry.size];
+		queued = new boolean[3 * geometry.size];
+		solution = new long[geometry.cells];
+	}
+
+	long[] level(int depth) {
+		if (levels[depth] == null) {
+			levels[depth] = new long[geometry.cells];
+		}
+		return levels[depth];
+	}
+
+	void clearWork() {
+		pendingCount = 0;
+		while (queueSize > 0) {
+			queued[queue[head]] = false;
+			head = (head + 1) % queue.length;
+			queueSize--;
+		}
+	}
+
+	void enqueue(int unit) {
+		if (!queued[unit]) {
+			queued[unit] = true;
+			queue[(head + queueSize) % queue.length] = unit;
+			queueSize++;
+		}
+	}
+
+	/*
+	 * Cut a square down to one digit.  Returns false if the digit isn't a candidate
+	 */
+	boolean place(long[] c, int cell, long bit) {
+		if ((c[cell] & bit) == 0) {
+			return false;
+		}
+		if (c[cell] != bit) {
+			c[cell] = bit;
+			pending[pendingCount++] = cell;
+			for (int u : geometry.cellUnits[cell]) {
+				enqueue(u);
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Remove digits from a square.  Returns false if it has none left
+	 */
+	boolean eliminate(long[] c, int cell, long mask) {
+		long m = c[cell];
+		if ((m & mask) == 0) {
+			return true;
+		}
+		m &= ~mask;
+		c[cell] = m;
+		if (m == 0) {
+			return false;
+		}
+		if ((m & (m - 1)) == 0) {
+			pending[pendingCount++] = cell;
+		}
+		for (int u : geometry.cellUnits[cell]) {
+			enqueue(u);
+		}
+		return true;
+	}
+
+	/*
+	 * Every digit needs a place in the unit, and a digit with one place goes there
+	 */
+	boolean checkUnit(long[] c, int unit) {
+		int[] cells = geometry.units[unit];
+		long once = 0;
+		long twice = 0;
+		for (int cell : cells) {
+			twice |= once & c[cell];
+			once |= c[cell];
+		}
+		if (once != geometry.all) {
+			return false;
+		}
+		long hidden = once & ~twice;
+		while (hidden != 0) {
+			long bit = hidden & -hidden;
+			hidden ^= bit;
+			for (int cell : cells) {
+				if ((c[cell] & bit) != 0) {
+					if (!place(c, cell, bit)) {
+						return false;
+					}
+					break;
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Run the singles until nothing changes.  Returns false on a contradiction
+	 */
+	boolean propagate(long[] c) {
+		while (true) {
+			if (pendingCount > 0) {
+				int cell = pending[--pendingCount];
+				long bit = c[cell];
+				for (int peer : geometry.peers[cell]) {
+					if (!eliminate(c, peer, bit)) {
+						return false;
+					}
+				}
+			}
+			else if (queueSize > 0) {
+				int unit = queue[head];
+				head = (head + 1) % queue.length;
+				queueSize--;
+				queued[unit] = false;
+				if (!checkUnit(c, unit)) {
+					return false;
+				}
+			}
+			else {
+				return true;
+			}
+		}
+	}
+
+	/*
+	 * Set up level 0 from the givens, and propagate.  Returns false on a contradiction
+	 */
+	boolean load(Puzzle puzzle) {
+		setup(puzzle.getOrder());
+		clearWork();
+		long[] c = level(0);
+		int size = geometry.size;
+		for (int cell = 0; cell < geometry.cells; cell++) {
+			c[cell] = geometry.all;
+		}
+		for (int u = 0; u < 3 * size; u++) {
+			enqueue(u);
+		}
+		for (int cell = 0; cell < geometry.cells; cell++) {
+			if (puzzle.isFilled(cell / size, cell % size)) {
+				// givens that clash are found when the peers are cleared
+				c[cell] = 1L << (puzzle.getSquare(cell / size, cell % size) - 1);
+				pending[pendingCount++] = cell;
+			}
+		}
+		return propagate(c);
+	}
+
+	void search(int depth) {
+		long[] c = levels[depth];
+		int best = -1;
+		int bestCount = Integer.MAX_VALUE;
+		for (int cell = 0; cell < geometry.cells; cell++) {
+			long m = c[cell];
+			if ((m & (m - 1)) != 0) {
+				int count = Long.bitCount(m);
+				if (count < bestCount) {
+					best = cell;
+					bestCount = count;
+					if (count == 2) {
+						break;
+					}
+				}
+			}
+		}
+		if (best < 0) {
+			if (solutions++ == 0) {
+				System.arraycopy(c, 0, solution, 0, geometry.cells);
+			}
+			return;
+		}
+		long[] next = level(depth + 1);
+		long m = c[best];
+		while (m != 0 && solutions < limit && !outOfBudget) {
+			long bit = m & -m;
+			m ^= bit;
+			nodes++;
+			if (budget != null && !budget.node()) {
+				outOfBudget = true;
+				return;
+			}
+			System.arraycopy(c, 0, next, 0, geometry.cells);
+			clearWork();
+			if (place(next, best, bit) && propagate(next)) {
+				search(depth + 1);
+			}
+		}
+	}
+
+	/**
+	 * Count the solutions of the puzzle, stopping once we reach the limit.  The puzzle is not
+	 * changed.
+	 * @param puzzle puzzle to check
+	 * @param limit stop searching after this many solutions
+	 * @return the number of solutions, at most limit
+	 */
+	public int countSolutions(Puzzle puzzle, int limit) {
+		solutions = 0;
+		nodes = 0;
+		this.limit = limit;
+		outOfBudget = false;
+		if (load(puzzle)) {
+			search(0);
+		}
+		return solutions;
+	}
+
+	/**
+	 * Count the solutions, giving up when the budget runs out.  storeSolution gives the first
+	 * solution if one was found in time.
+	 * @param budget the limits of the search, or null for none
+	 * @throws BudgetExceededException the budget ran out before the count was known
+	 */
+	public int countSolutions(Puzzle puzzle, int limit, Budget budget) throws BudgetExceededException {
+		this.budget = budget;
+		try {
+			countSolutions(puzzle, limit);
+		} finally {
+			this.budget = null;
+		}
+		if (outOfBudget) {
+			throw new BudgetExceededException(budget);
+		}
+		return solutions;
+	}
+
+	public boolean isUnique(Puzzle puzzle) {
+		return countSolutions(puzzle, 2) == 1;
+	}
+
+	/**
+	 * Solve the puzzle.  It has to have exactly one solution
+	 */
+	public void solve(Puzzle puzzle) throws CantSolveException {
+		solve(puzzle, null);
+	}
+
+	public void solve(Puzzle puzzle, Budget budget) throws CantSolveException {
+		int count = countSolutions(puzzle, 2, budget);
+		if (count == 0) {
+			throw new InvalidPuzzleException("Puzzle has no solution");
+		}
+		if (count > 1) {
+			throw new CantSolveException("Puzzle has more than one solution");
+		}
+		storeSolution(puzzle);
+	}
+
+	/**
+	 * Fill in the first solution found by the last search
+	 */
+	public void storeSolution(Puzzle puzzle) {
+		if (solutions == 0) {
+			return;
+		}
+		int size = geometry.size;
+		for (int cell = 0; cell < geometry.cells; cell++) {
+			puzzle.setSquare(cell / size, cell % size, Long.numberOfTrailingZeros(solution[cell]) + 1);
+		}
+	}
+
+	/**
+	 * @return the number of guesses the last solve made
+	 */
+	public int getSolveTries() {
+		return nodes;
+	}
+}
@@ -0,0 +1,125 @@
+package org.mike.sudoku;
+
+/**
+ * Box and line interactions.
+ * <ul>
+ * <li>Pointing:  if a digit can only go in one row (or column) of a box, it can't go in that
+ * row anywhere outside the box.</li>
+ * <li>Claiming:  if a digit can only go in one box along a row (or column), it can't go
+ * anywhere else in that box.</li>
+ * </ul>
+ * For every unit and digit we build a 3 bit mask of the rows, columns or boxes the digit can
+ * still go in.  A mask with a single bit is a locked candidate.  An instance must not be
+ * shared between threads.
+ */
+public class LockedCandidates implements Technique {
+	// for each digit, the rows and columns of a box, or the boxes along a line, it can go in
+	int[] rows = new int[9];
+	int[] cols = new int[9];
+	int[] boxes = new int[9];
+	// eliminations made by this application
+	int made;
+
+	public String getName() {
+		return "locked candidates";
+	}
+
+	public int getCost() {
+		return 15;
+	}
+
+	public int apply(CandidateGrid grid) {
+		made = 0;
+		for (int box = 0; box < 9 && !grid.hasContradiction(); box++) {
+			pointing(grid, box);
+		}
+		for (int line = 0; line < 18 && !grid.hasContradiction(); line++) {
+			claiming(grid, line);
+		}
+		return made;
+	}
+
+	void pointing(CandidateGrid grid, int box) {
+		for (int d = 0; d < 9; d++) {
+			rows[d] = 0;
+			cols[d] = 0;
+		}
+		for (int i = 0; i < 9; i++) {
+			int cell = CandidateGrid.unitCell(18 + box, i);
+			if (grid.getValue(cell) != 0) {
+				continue;
+			}
+			int choices = grid.getCandidates(cell);
+			while (choices != 0) {
+				int d = Integer.numberOfTrailingZeros(choices);
+				choices &= choices - 1;
+				rows[d] |= 1 << (i / 3);
+				cols[d] |= 1 << (i % 3);
+			}
+		}
+		for (int d = 0; d < 9; d++) {
+			if (Digits.isSingle(rows[d])) {
+				int row = (box / 3) * 3 + Integer.numberOfTrailingZeros(rows[d]);
+				eliminateOutside(grid, row, 18 + box, 1 << d);
+			}
+			if (Digits.isSingle(cols[d])) {
+				int col = (box % 3) * 3 + Integer.numberOfTrailingZeros(cols[d]);
+				eliminateOutside(grid, 9 + col, 18 + box, 1 << d);
+			}
+		}
+	}
+
+	/*
+	 * line is a row (0 to 8) or a column (9 to 17)
+	 */
+	void claiming(CandidateGrid grid, int line) {
+		for (int d = 0; d < 9; d++) {
+			boxes[d] = 0;
+		}
+		for (int i = 0; i < 9; i++) {
+			int cell = CandidateGrid.unitCell(line, i);
+			if (grid.getValue(cell) != 0) {
+				continue;
+			}
+			int choices = grid.getCandidates(cell);
+			while (choices != 0) {
+				int d = Integer.numberOfTrailingZeros(choices);
+				choices &= choices - 1;
+				// along the line, squares 0-2, 3-5 and 6-8 are in different boxes
+				boxes[d] |= 1 << (i / 3);
+			}
+		}
+		for (int d = 0; d < 9; d++) {
+			if (Digits.isSingle(boxes[d])) {
+				int cell = CandidateGrid.unitCell(line, Integer.numberOfTrailingZeros(boxes[d]) * 3);
+				eliminateOutside(grid, 18 + CandidateGrid.box(cell), line, 1 << d);
+			}
+		}
+	}
+
+	/*
+	 * Remove a digit from the squares of one unit that are not in another unit
+	 */
+	void eliminateOutside(CandidateGrid grid, int unit, int other, int bit) {
+		for (int i = 0; i < 9; i++) {
+			int cell = CandidateGrid.unitCell(unit, i);
+			if (grid.getValue(cell) != 0 || (grid.getCandidates(cell) & bit) == 0 || inUnit(cell, other)) {
+				continue;
+			}
+			made++;
+			if (!grid.eliminate(cell, bit)) {
+				return;
+			}
+		}
+	}
+
+	boolean inUnit(int cell, int unit) {
+		if (unit < 9) {
+			return CandidateGrid.row(cell) == unit;
+		}
+		if (unit < 18) {
+			return CandidateGrid.col(cell) == unit - 9;
+		}
+		return CandidateGrid.box(cell) == unit - 18;
+	}
+}
@@ -0,0 +1,30 @@
+package org.mike.sudoku;
+
+/**
+ * A square with only one choice left gets that digit.  The grid keeps a stack of the squares
+ * that were cut down to one choice, so this never looks at the rest of the board.
+ */
+public class NakedSingles implements Technique {
+
+	public String getName() {
+		return "naked single";
+	}
+
+	public int getCost() {
+		return 1;
+	}
+
+	public int apply(CandidateGrid grid) {
+		int placed = 0;
+		int cell;
+		while ((cell = grid.nextSingle()) >= 0) {
+			if (grid.getValue(cell) == 0) {
+				placed++;
+				if (!grid.assign(cell, Digits.first(grid.getCandidates(cell)))) {
+					break;
+				}
+			}
+		}
+		return placed;
+	}
+}
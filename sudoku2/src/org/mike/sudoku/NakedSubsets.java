@@ -0,0 +1,91 @@
+package org.mike.sudoku;
+
+/**
+ * Naked pairs, triples and quads.  If n empty squares of a unit only have n digits between
+ * them, for example {1,2}, {2,3} and {1,3}, those digits can't go anywhere else in the unit.
+ * 
+ * The squares are tried in combinations, and a combination is dropped as soon as the union of
+ * its choices has more than n digits.  Everything is done on digit masks, and the scratch
+ * arrays belong to the technique, so an instance must not be shared between threads.
+ */
+public class NakedSubsets implements Technique {
+	static final String[] NAMES = { "", "single", "pair", "triple", "quad" };
+
+	int size;
+
+	// the empty squares of the unit being checked, and their choices
+	int[] cells = new int[9];
+	int[] masks = new int[9];
+	int count;
+	// eliminations made by this application
+	int made;
+
+	/**
+	 * @param size number of squares in the subset, 2 to 4
+	 */
+	public NakedSubsets(int size) {
+		this.size = size;
+	}
+
+	public String getName() {
+		return "naked " + NAMES[size];
+	}
+
+	public int getCost() {
+		return 10 * size;
+	}
+
+	public int apply(CandidateGrid grid) {
+		made = 0;
+		for (int unit = 0; unit < 27 && !grid.hasContradiction(); unit++) {
+			count = 0;
+			for (int i = 0; i < 9; i++) {
+				int cell = CandidateGrid.unitCell(unit, i);
+				if (grid.getValue(cell) == 0) {
+					cells[count] = cell;
+					masks[count] = grid.getCandidates(cell);
+					count++;
+				}
+			}
+			// we need at least one square outside the subset
+			if (count > size) {
+				search(grid, 0, 0, 0, 0);
+			}
+		}
+		return made;
+	}
+
+	/*
+	 * Add squares from start on to the subset.  members has a bit for each square in it
+	 */
+	void search(CandidateGrid grid, int start, int depth, int union, int members) {
+		for (int i = start; i < count; i++) {
+			int choices = Digits.count(masks[i]);
+			if (choices < 2 || choices > size) {
+				continue;
+			}
+			int u = union | masks[i];
+			if (Digits.count(u) > size) {
+				continue;
+			}
+			if (depth + 1 < size) {
+				search(grid, i + 1, depth + 1, u, members | 1 << i);
+			}
+			else if (Digits.count(u) == size) {
+				eliminate(grid, u, members | 1 << i);
+			}
+		}
+	}
+
+	void eliminate(CandidateGrid grid, int digits, int members) {
+		for (int i = 0; i < count; i++) {
+			if ((members & 1 << i) == 0 && (grid.getCandidates(cells[i]) & digits) != 0) {
+				made += Digits.count(grid.getCandidates(cells[i]) & digits);
+				if (!grid.eliminate(cells[i], digits)) {
+					return;
+				}
+				masks[i] = grid.getCandidates(cells[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package org.mike.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.mike.util.SplitRandom;
+
+/**
+ * Builds a puzzle by racing several Builders on their own threads and taking the first one
+ * done.  Most builds are quick, but now and then one is slow, and the odds that every
+ * attempt is slow are much lower.  Each attempt has its own seed, so the winner can be
+ * built again from its seed alone.
+ *
+ * The race runs on a coordinator thread, which hands the attempts to the workers with
+ * invokeAny.  As soon as one attempt is done the rest are cancelled, which interrupts
+ * them, and their budgets stop them at the next check.  Cancelling the returned future
+ * cancels the race the same way.
+ */
+public class ParallelBuilder {
+	ExecutorService workers;
+	ExecutorService coordinator;
+	int attempts;
+	// the seeds of the attempts
+	SplitRandom random;
+
+	/**
+	 * Race as many attempts as there are processors
+	 */
+	public ParallelBuilder() {
+		this(Runtime.getRuntime().availableProcessors(), Executors.defaultThreadFactory());
+	}
+
+	/**
+	 * @param attempts the number of builds to race
+	 * @param factory makes the worker and coordinator threads
+	 */
+	public ParallelBuilder(int attempts, ThreadFactory factory) {
+		if (attempts < 1) {
+			throw new IllegalArgumentException("attempts must be at least 1");
+		}
+		this.attempts = attempts;
+		workers = Executors.newFixedThreadPool(attempts, factory);
+		coordinator = Executors.newCachedThreadPool(factory);
+		random = new SplitRandom();
+	}
+
+	/**
+	 * Start a race for a puzzle the logic solver can do
+	 * @param showRatio percent of the squares to show, see Builder
+	 * @param millis the most time each attempt may take, 0 for no limit
+	 * @return the first puzzle built.  If every attempt fails, get throws an
+	 * ExecutionException with the reason the last one failed
+	 */
+	public Future<Builder> submit(int showRatio, long millis) {
+		return submit(showRatio, false, millis);
+	}
+
+	/**
+	 * Start a race
+	 * @param showRatio percent of the squares to show, see Builder
+	 * @param links only ask for a unique puzzle, checked by dancing links
+	 * @param millis the most time each attempt may take, 0 for no limit
+	 */
+	public Future<Builder> submit(final int showRatio, final boolean links, final long millis) {
+		final List<Callable<Builder>> race = new ArrayList<Callable<Builder>>();
+		for (int i = 0; i < attempts; i++) {
+			final long seed = nextSeed();
+			race.add(new Callable<Builder>() {
+				public Builder call() throws NoSolutionException {
+					// the engines pooled by the worker thread, null for its logic solver
+					Engine engine = links ? SolverPool.getLinks() : null;
+					return new Builder(showRatio, engine, new Budget(millis, 0, 0), seed);
+				}
+			});
+		}
+		return coordinator.submit(new Callable<Builder>() {
+			public Builder call() throws InterruptedException, ExecutionException {
+				return workers.invokeAny(race);
+			}
+		});
+	}
+
+	/**
+	 * Race for a puzzle and wait for it
+	 * @throws BudgetExceededException every attempt ran out of time
+	 * @throws NoSolutionException every attempt failed
+	 * @throws InterruptedException the wait was interrupted.  The race is cancelled
+	 */
+	public Builder build(int showRatio, long millis) throws NoSolutionException, InterruptedException {
+		Future<Builder> future = submit(showRatio, millis);
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		}
+		catch (ExecutionException e) {
+			// the coordinator's failure is invokeAny's, which wraps the last attempt's
+			Throwable cause = e.getCause();
+			if (cause instanceof ExecutionException) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof NoSolutionException) {
+				throw (NoSolutionException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException("Build failed", cause);
+		}
+	}
+
+	synchronized long nextSeed() {
+		return random.nextLong();
+	}
+
+	/**
+	 * @return the number of builds raced for each puzzle
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * Stop the threads.  Races going on are cancelled
+	 */
+	public void shutdown() {
+		coordinator.shutdownNow();
+		workers.shutdownNow();
+	}
+}
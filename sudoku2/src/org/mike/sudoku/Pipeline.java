@@ -0,0 +1,119 @@
+package org.mike.sudoku;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An ordered list of techniques.  The techniques run from cheapest to most expensive, and
+ * whenever one of them changes the grid we start again from the cheapest.  So naked and
+ * hidden singles do most of the work, and the expensive techniques only run when the
+ * singles are stuck.
+ */
+public class Pipeline {
+	Technique[] techniques;
+
+	/**
+	 * A pipeline of the given techniques, sorted by cost.  Techniques with the same cost
+	 * keep their order
+	 */
+	public Pipeline(Technique... techniques) {
+		this.techniques = techniques.clone();
+		Arrays.sort(this.techniques, new Comparator<Technique>() {
+			public int compare(Technique t1, Technique t2) {
+				return Integer.compare(t1.getCost(), t2.getCost());
+			}
+		});
+	}
+
+	/**
+	 * The techniques the Solver uses by default
+	 */
+	public static Pipeline standard() {
+		return new Pipeline(new NakedSingles(), new HiddenSingles(), new LockedCandidates(),
+				new NakedSubsets(2), new HiddenSubsets(2),
+				new NakedSubsets(3), new HiddenSubsets(3),
+				new NakedSubsets(4), new HiddenSubsets(4));
+	}
+
+	public Technique[] getTechniques() {
+		return techniques.clone();
+	}
+
+	/**
+	 * Run the techniques until at least one digit has been placed, or nothing changes
+	 * @return true if a digit was placed
+	 */
+	public boolean step(CandidateGrid grid) {
+		return step(grid, null);
+	}
+
+	/**
+	 * A step that also counts the techniques used in the rating
+	 */
+	public boolean step(CandidateGrid grid, Rating rating) {
+		int filled = grid.getFilled();
+		run(grid, true, rating, null, null);
+		return grid.getFilled() > filled && !grid.hasContradiction();
+	}
+
+	/**
+	 * Run the techniques until nothing changes
+	 * @return the number of times a technique changed the grid
+	 */
+	public int run(CandidateGrid grid) {
+		return run(grid, false, null, null, null);
+	}
+
+	/**
+	 * Run the techniques until nothing changes, and count the techniques used in the rating
+	 * @return the number of times a technique changed the grid
+	 */
+	public int run(CandidateGrid grid, Rating rating) {
+		return run(grid, false, rating, null, null);
+	}
+
+	/*
+	 * The pipeline loop.  The rating, recorder and budget are null when nobody wants them.
+	 * Each technique tried is a step of the budget, and the loop stops when it runs out
+	 */
+	int run(CandidateGrid grid, boolean untilPlaced, Rating rating, SolverMetrics.Recorder recorder, Budget budget) {
+		int filled = grid.getFilled();
+		int passes = 0;
+		int i = 0;
+		while (i < techniques.length && !grid.isSolved() && !grid.hasContradiction()) {
+			if (budget != null && !budget.step()) {
+				break;
+			}
+			if (grid.trace != null) {
+				grid.trace.begin(i);
+			}
+			int made;
+			if (recorder == null) {
+				made = techniques[i].apply(grid);
+			}
+			else if (recorder.sample()) {
+				long start = System.nanoTime();
+				made = techniques[i].apply(grid);
+				recorder.technique(i, System.nanoTime() - start);
+			}
+			else {
+				made = techniques[i].apply(grid);
+				recorder.technique(i);
+			}
+			if (made > 0) {
+				passes++;
+				if (rating != null) {
+					rating.record(i, made);
+				}
+				if (untilPlaced && grid.getFilled() > filled) {
+					break;
+				}
+				i = 0;
+			}
+			else {
+				i++;
+			}
+		}
+		return passes;
+	}
+}
@@ -6,8 +6,55 @@ import java.io.StringReader;
 
 import org.mike.util.Range;
 
+/*
+ * A sudoku board of any order.  The order is the size of a box side: 3 for the usual 9 x 9
+ * board, 4 for 16 x 16 and 5 for 25 x 25.  Squares hold 1 to size, and 0 is empty.  Boards
+ * are written with the symbols 1-9 then A-P, so a 9 x 9 board is plain digits.
+ */
 public class Puzzle {
-	int [][] board = new int[9][9];
+	public static final String SYMBOLS = "123456789ABCDEFGHIJKLMNOP";
+	public static final int MAX_ORDER = 5;
+
+	// square value of each character, 0 for anything that isn't a symbol
+	static final int[] VALUES = new int[128];
+
+	static {
+		for (int i = 0; i < SYMBOLS.length(); i++) {
+			VALUES[SYMBOLS.charAt(i)] = i + 1;
+			VALUES[Character.toLowerCase(SYMBOLS.charAt(i))] = i + 1;
+		}
+	}
+
+	int order;
+	int size;
+	int [][] board;
+	
+	public Puzzle() {
+		this(3);
+	}
+	
+	/*
+	 * An empty board with order x order boxes
+	 */
+	public Puzzle(int order) {
+		if (order < 1 || order > MAX_ORDER) {
+			throw new IllegalArgumentException("Order must be 1 to " + MAX_ORDER + ": " + order);
+		}
+		this.order = order;
+		size = order * order;
+		board = new int[size][size];
+	}
+	
+	public int getOrder() {
+		return order;
+	}
+	
+	/*
+	 * The number of rows, columns and digits
+	 */
+	public int getSize() {
+		return size;
+	}
 	
 	public void setSquare (int row, int col, int val) {
 		board[row][col] = val;
@@ -19,13 +66,13 @@ public class Puzzle {
 	}
 	
 	public boolean isFilled(int row, int col) {
-		return board[row][col] > 0 && board[row][col] < 10;
+		return board[row][col] > 0 && board[row][col] <= size;
 	}
 	
 	public boolean isSolved()
 	{
-		for (int row : new Range(9)) {
-			for (int col : new Range(9)) {
+		for (int row : new Range(size)) {
+			for (int col : new Range(size)) {
 				if (!isFilled(row,col)) {
 					return false;
 				}
@@ -34,11 +81,18 @@ public class Puzzle {
 		return true;
 	}
 	
+	/*
+	 * The value of a board character for a board of this size, 0 if it isn't one
+	 */
+	int value(int c) {
+		int value = c >= 0 && c < 128 ? VALUES[c] : 0;
+		return value <= size ? value : 0;
+	}
 	
 	public String printSquare(int row, int col)
 	{
 		if (isFilled(row, col)) {
-			return(Integer.toString(board[row][col]));
+			return(String.valueOf(SYMBOLS.charAt(board[row][col] - 1)));
 		}
 		else {
 			return(" ");
@@ -47,13 +101,20 @@ public class Puzzle {
 	
 	public void printBoard()
 	{
-		String header = "+---+---+---+";
-		for (int r : new Range(9)) {
-			if (r % 3 == 0) {
+		StringBuilder header = new StringBuilder();
+		for (int b = 0; b < order; b++) {
+			header.append('+');
+			for (int i = 0; i < order; i++) {
+				header.append('-');
+			}
+		}
+		header.append('+');
+		for (int r : new Range(size)) {
+			if (r % order == 0) {
 				System.out.println(header);
 			}
-			for (int c : new Range(9)) {
-				if (c % 3 == 0) {
+			for (int c : new Range(size)) {
+				if (c % order == 0) {
 					System.out.print("|");
 				}
 				System.out.print(printSquare(r,c));
@@ -70,27 +131,33 @@ public class Puzzle {
 	}
 	
 	public void readBoard(Reader boardReader) throws IOException {
-		for (int row : new Range(9)) {
-			for (int col : new Range(9)) {
-				int c = boardReader.read();
-				if (Character.isDigit(c)) {
-					board[row][col] = (c - '0');
-				}
-				else {
-					board[row][col] = 0;
-				}
+		for (int row : new Range(size)) {
+			for (int col : new Range(size)) {
+				board[row][col] = value(boardReader.read());
 			}
 		}
 		
 	}
 	
+	/*
+	 * Read a board from size * size bytes of a line, as found in puzzle files.  Anything that
+	 * isn't a symbol is an empty square
+	 */
+	public void readBoard(byte[] bytes, int offset) {
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				board[row][col] = value(bytes[offset++]);
+			}
+		}
+	}
+	
 	public String toString() {
 		StringBuffer sb = new StringBuffer();
-		for (int row = 0; row < 9; row++) {
-			for (int col = 0; col < 9; col++) {
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
 				int sq = board[row][col];
-				if (sq > 0 && sq < 10) {
-					sb.append(Integer.toString(sq));
+				if (sq > 0 && sq <= size) {
+					sb.append(SYMBOLS.charAt(sq - 1));
 				}
 				else {
 					sb.append(" ");
@@ -0,0 +1,314 @@
+package org.mike.sudoku;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Puzzles built ahead of time, so a page doesn't have to wait for one.  There is a bounded
+ * queue of ready puzzles for each level (the show ratio of the Builder).  Taking a puzzle
+ * never blocks: when the queue is empty the caller gets null and builds its own.  When a
+ * queue falls below the low water mark a background worker builds puzzles until it is full
+ * again, one worker per level at a time.
+ *
+ * The puzzles built can be kept in a SeedBank as well, which makes more of them for free
+ * when the pool is empty.
+ *
+ * The threads come from a ThreadFactory, since where threads may be started depends on the
+ * platform.  App Engine's frontends don't let a request start one, so there the shared pool
+ * has no workers, and fillFor fills it on the thread of a warmup or cron request instead
+ * (see fill.jsp).  A worker that can't be started counts as a failure and is logged.
+ */
+public class PuzzlePool {
+	// the levels of the pages, see puzzle.jsp
+	static final int[] LEVELS = { 35, 30, 25 };
+	static int CAPACITY = 20;
+	static int LOW_WATER = 5;
+	// the most time a worker spends on one puzzle
+	static long BUILD_MILLIS = 10000;
+
+	// the property that says whether the shared pool may start threads.  By default it does,
+	// except on App Engine
+	public static final String PROPERTY = "org.mike.sudoku.pool.threads";
+
+	static final Logger log = Logger.getLogger(PuzzlePool.class.getName());
+
+	Map<Integer, BlockingQueue<Builder>> queues = new HashMap<Integer, BlockingQueue<Builder>>();
+	// whether a worker is filling the level
+	Map<Integer, AtomicBoolean> filling = new HashMap<Integer, AtomicBoolean>();
+	int lowWater;
+	// null when there are no threads to build on
+	ExecutorService workers;
+	// where the puzzles built also go, or null
+	volatile SeedBank bank;
+
+	AtomicLong hits = new AtomicLong();
+	AtomicLong misses = new AtomicLong();
+	AtomicLong built = new AtomicLong();
+	AtomicLong failures = new AtomicLong();
+	// whether a worker that wouldn't start has been logged as a warning yet
+	AtomicBoolean warned = new AtomicBoolean();
+
+	/**
+	 * @param capacity the most puzzles kept for each level
+	 * @param lowWater start filling a level when it has fewer puzzles than this
+	 * @param threads the most workers building at once
+	 * @param factory makes the worker threads, or null for none, so the pool is only filled
+	 * by fillFor
+	 * @param levels the levels to keep puzzles for
+	 */
+	public PuzzlePool(int capacity, int lowWater, int threads, ThreadFactory factory, int... levels) {
+		for (int level : levels) {
+			queues.put(level, new ArrayBlockingQueue<Builder>(capacity));
+			filling.put(level, new AtomicBoolean());
+		}
+		this.lowWater = lowWater;
+		if (factory != null) {
+			workers = Executors.newFixedThreadPool(threads, new CheckedFactory(factory));
+		}
+	}
+
+	static class Holder {
+		static final PuzzlePool SHARED = new PuzzlePool(CAPACITY, LOW_WATER, 1, factory(), LEVELS);
+		static {
+			SHARED.setSeedBank(SeedBank.shared());
+		}
+	}
+
+	/**
+	 * @return the pool the web app shares.  It starts empty, and fills as it is used, or
+	 * when fillFor is called
+	 */
+	public static PuzzlePool shared() {
+		return Holder.SHARED;
+	}
+
+	/**
+	 * @return the factory of the shared pool, or null if it may not start threads
+	 */
+	static ThreadFactory factory() {
+		try {
+			String threads = System.getProperty(PROPERTY);
+			if (threads == null) {
+				// App Engine sets this, and won't let a request start a thread
+				threads = String.valueOf(System.getProperty("com.google.appengine.runtime.environment") == null);
+			}
+			return Boolean.parseBoolean(threads) ? new WorkerFactory() : null;
+		}
+		catch (SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Daemon threads at low priority, so building never holds up a request or a shutdown
+	 */
+	static class WorkerFactory implements ThreadFactory {
+		AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "puzzle-pool-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	}
+
+	/*
+	 * A factory that throws when it can't make a thread.  The executor would otherwise queue
+	 * the work for a thread that never comes, and the level would never be filled again
+	 */
+	static class CheckedFactory implements ThreadFactory {
+		ThreadFactory factory;
+
+		CheckedFactory(ThreadFactory factory) {
+			this.factory = factory;
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread thread = factory.newThread(r);
+			if (thread == null) {
+				throw new IllegalStateException("The thread factory made no thread");
+			}
+			return thread;
+		}
+	}
+
+	public SeedBank getSeedBank() {
+		return bank;
+	}
+
+	/**
+	 * Put every puzzle the workers build in the bank too, so it has seeds when the pool runs dry
+	 */
+	public void setSeedBank(SeedBank bank) {
+		this.bank = bank;
+	}
+
+	/**
+	 * Take a ready puzzle
+	 * @return the puzzle, or null if there is none ready, or the pool doesn't keep the level
+	 */
+	public Builder take(int level) {
+		BlockingQueue<Builder> queue = queues.get(level);
+		if (queue == null) {
+			return null;
+		}
+		Builder builder = queue.poll();
+		if (builder == null) {
+			misses.incrementAndGet();
+		}
+		else {
+			hits.incrementAndGet();
+		}
+		if (queue.size() < lowWater) {
+			fill(level);
+		}
+		return builder;
+	}
+
+	/**
+	 * Start filling every level, so the first pages find puzzles
+	 */
+	public void fill() {
+		for (int level : queues.keySet()) {
+			fill(level);
+		}
+	}
+
+	/*
+	 * Start a worker on the level, unless one is on it already
+	 */
+	void fill(final int level) {
+		final AtomicBoolean busy = filling.get(level);
+		if (workers == null || !busy.compareAndSet(false, true)) {
+			return;
+		}
+		final BlockingQueue<Builder> queue = queues.get(level);
+		try {
+			workers.execute(new Runnable() {
+				public void run() {
+					try {
+						while (queue.remainingCapacity() > 0 && !Thread.currentThread().isInterrupted()) {
+							try {
+								Builder builder = new Builder(level, null, Budget.millis(BUILD_MILLIS));
+								if (bank != null) {
+									bank.add(builder);
+								}
+								queue.offer(builder);
+								built.incrementAndGet();
+							}
+							catch (NoSolutionException e) {
+								failures.incrementAndGet();
+							}
+						}
+					} finally {
+						busy.set(false);
+					}
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			busy.set(false);
+			if (!workers.isShutdown()) {
+				// no thread to run it on
+				failures.incrementAndGet();
+				log.log(warned.compareAndSet(false, true) ? Level.WARNING : Level.FINE,
+						"No worker thread to fill level " + level, e);
+			}
+		}
+	}
+
+	/**
+	 * Build puzzles on this thread until every level is full or the time is up, a level at a
+	 * time with the emptiest first.  This is how a warmup or cron request fills the pool
+	 * where it can't start threads
+	 * @param millis the most time to spend
+	 * @return the number of puzzles built
+	 */
+	public int fillFor(long millis) {
+		Budget budget = Budget.millis(millis);
+		int count = 0;
+		while (true) {
+			int level = 0;
+			int room = 0;
+			for (Map.Entry<Integer, BlockingQueue<Builder>> entry : queues.entrySet()) {
+				if (entry.getValue().remainingCapacity() > room) {
+					level = entry.getKey();
+					room = entry.getValue().remainingCapacity();
+				}
+			}
+			// a build may take no longer than the time left, which is 0 once it is up
+			long left = Math.min(BUILD_MILLIS, budget.getRemainingMillis());
+			if (room == 0 || left == 0) {
+				return count;
+			}
+			try {
+				Builder builder = new Builder(level, null, Budget.millis(left));
+				if (bank != null) {
+					bank.add(builder);
+				}
+				queues.get(level).offer(builder);
+				built.incrementAndGet();
+				count++;
+			}
+			catch (NoSolutionException e) {
+				failures.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of ready puzzles of the level
+	 */
+	public int size(int level) {
+		BlockingQueue<Builder> queue = queues.get(level);
+		return queue == null ? 0 : queue.size();
+	}
+
+	/**
+	 * @return takes that got a puzzle
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return takes that found the level empty
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return puzzles the workers have built
+	 */
+	public long getBuilt() {
+		return built.get();
+	}
+
+	/**
+	 * @return builds that ran out of time or failed, and workers that couldn't be started
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * Stop the workers.  Puzzles already built can still be taken
+	 */
+	public void shutdown() {
+		if (workers != null) {
+			workers.shutdownNow();
+		}
+	}
+}
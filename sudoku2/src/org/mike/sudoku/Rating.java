@@ -0,0 +1,135 @@
+package org.mike.sudoku;
+
+/**
+ * How hard a puzzle is for a person, taken from the techniques the logic solver needed.
+ * The pipeline counts the deductions of each technique while solving: the digits it placed
+ * and the candidates it eliminated.  The hardest technique used sets the level, and the
+ * score is the cost of each technique times its deductions.  The costs grow quickly, so the
+ * hardest technique dominates the score, and of two puzzles that need the same technique the
+ * one that needs more of it rates harder.
+ *
+ * In step mode the solver loads the grid again for every step, and an elimination found again
+ * counts again, so only compare ratings of the same mode.  The shared solvers are incremental.
+ *
+ * A rating belongs to the solver that fills it in, and is reset for every solve.  Use the
+ * copy constructor to keep one.
+ */
+public class Rating {
+	// the levels, by the cost of the hardest technique needed
+	static final String[] LEVELS = { "easy", "medium", "hard", "expert" };
+	static final int[] LEVEL_COSTS = { 2, 15, 25 };
+
+	Technique[] techniques;
+	// times each technique changed the grid, in pipeline order
+	int[] fires;
+	// placements and eliminations of each technique
+	int[] deductions;
+	// index of the hardest technique that fired, -1 if none did
+	int hardest = -1;
+
+	public Rating(Pipeline pipeline) {
+		techniques = pipeline.techniques;
+		fires = new int[techniques.length];
+		deductions = new int[techniques.length];
+	}
+
+	public Rating(Rating rating) {
+		techniques = rating.techniques;
+		fires = rating.fires.clone();
+		deductions = rating.deductions.clone();
+		hardest = rating.hardest;
+	}
+
+	public void reset() {
+		for (int i = 0; i < fires.length; i++) {
+			fires[i] = 0;
+			deductions[i] = 0;
+		}
+		hardest = -1;
+	}
+
+	/*
+	 * Technique i of the pipeline made this many deductions.  The techniques are sorted by
+	 * cost, so the hardest is the one with the largest index
+	 */
+	void record(int i, int made) {
+		fires[i]++;
+		deductions[i] += made;
+		if (i > hardest) {
+			hardest = i;
+		}
+	}
+
+	/**
+	 * @return the most expensive technique that was needed, or null if the givens were enough
+	 */
+	public Technique getHardest() {
+		return hardest < 0 ? null : techniques[hardest];
+	}
+
+	/**
+	 * @return how many times the technique changed the grid.  One time can be many
+	 * deductions
+	 */
+	public int getFires(Technique technique) {
+		for (int i = 0; i < techniques.length; i++) {
+			if (techniques[i] == technique) {
+				return fires[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the digits the technique placed plus the candidates it eliminated
+	 */
+	public int getDeductions(Technique technique) {
+		for (int i = 0; i < techniques.length; i++) {
+			if (techniques[i] == technique) {
+				return deductions[i];
+			}
+		}
+		return 0;
+	}
+
+	public Technique[] getTechniques() {
+		return techniques.clone();
+	}
+
+	public int getScore() {
+		int score = 0;
+		for (int i = 0; i < techniques.length; i++) {
+			score += techniques[i].getCost() * deductions[i];
+		}
+		return score;
+	}
+
+	/**
+	 * @return easy, medium, hard or expert
+	 */
+	public String getLevel() {
+		int cost = hardest < 0 ? 0 : techniques[hardest].getCost();
+		int level = 0;
+		while (level < LEVEL_COSTS.length && cost > LEVEL_COSTS[level]) {
+			level++;
+		}
+		return LEVELS[level];
+	}
+
+	/**
+	 * e.g. medium (86): naked single x31, hidden single x20, locked candidates x1, with the
+	 * deductions of each technique
+	 */
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getLevel()).append(" (").append(getScore()).append(')');
+		String sep = ": ";
+		for (int i = 0; i < techniques.length; i++) {
+			if (deductions[i] > 0) {
+				sb.append(sep).append(techniques[i].getName()).append(" x").append(deductions[i]);
+				sep = ", ";
+			}
+		}
+		return sb.toString();
+	}
+}
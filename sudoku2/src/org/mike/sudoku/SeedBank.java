@@ -0,0 +1,136 @@
+package org.mike.sudoku;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A few real puzzles of each level, and as many more as we like made from them.  Every grid
+ * has about 1.2 trillion relatives: relabel the digits, shuffle the rows inside each band
+ * and the bands, the same for the columns, and transpose.  A relative of a puzzle is just as
+ * unique and needs the same techniques, so it has the same level, and making one is a copy.
+ *
+ * The bank keeps at most a fixed number of seeds per level.  When a level is full a new seed
+ * takes the place of a random old one, so a bank that is fed now and then slowly turns over.
+ * The warmup and cron requests give the shared bank a few puzzles of each level built from
+ * fixed seeds (see seedLevels and fill.jsp), so it has seeds even where nothing builds
+ * puzzles ahead of time, and no page waits for them.  The methods are synchronized.
+ */
+public class SeedBank {
+	// seeds kept for each level in the shared bank
+	static int SHARED_SIZE = 50;
+	// the Builder seeds of the first puzzles of a level, a few milliseconds each to build
+	static final long[] FIRST_SEEDS = { 2, 3, 5, 6 };
+	// the most time one of them may take, should the instance be slow
+	static long SEED_MILLIS = 2000;
+
+	int size;
+	Map<Integer, List<Builder>> seeds = new HashMap<Integer, List<Builder>>();
+	Random random;
+
+	/**
+	 * @param size the most seeds kept for each level
+	 * @param random picks the seed that a new one replaces
+	 */
+	public SeedBank(int size, Random random) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size must be at least 1");
+		}
+		this.size = size;
+		this.random = random;
+	}
+
+	static class Holder {
+		static final SeedBank SHARED = new SeedBank(SHARED_SIZE, new Random());
+	}
+
+	/**
+	 * @return the bank the web app shares.  It starts empty, seedLevels gives it a few seeds
+	 * of each level of the pages, and the puzzle pool puts what it builds in it
+	 */
+	public static SeedBank shared() {
+		return Holder.SHARED;
+	}
+
+	/**
+	 * Keep a puzzle as a seed of its level (the show ratio it was built with)
+	 */
+	public synchronized void add(Builder builder) {
+		List<Builder> level = seeds.get(builder.getShowRatio());
+		if (level == null) {
+			level = new ArrayList<Builder>();
+			seeds.put(builder.getShowRatio(), level);
+		}
+		if (level.size() < size) {
+			level.add(builder);
+		}
+		else {
+			level.set(random.nextInt(size), builder);
+		}
+	}
+
+	/**
+	 * Add the puzzles built from fixed seeds, so the same ones every time
+	 * @param levels the levels (show ratios) to build
+	 * @param seeds the Builder seeds to build each level from
+	 * @return the number of seeds added.  A build that fails or runs out of time is left out
+	 */
+	public int seed(int[] levels, long... seeds) {
+		int count = 0;
+		for (int level : levels) {
+			for (long seed : seeds) {
+				try {
+					add(new Builder(level, null, Budget.millis(SEED_MILLIS), seed));
+					count++;
+				}
+				catch (NoSolutionException e) {
+					// one fewer seed
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Give each level of the pages that has no seeds yet the puzzles of a few fixed seeds.
+	 * This builds a dozen puzzles, so call it from a warmup or cron request, not a page
+	 * @return the number of seeds added
+	 */
+	public int seedLevels() {
+		int count = 0;
+		for (int level : PuzzlePool.LEVELS) {
+			if (size(level) == 0) {
+				count += seed(new int[] { level }, FIRST_SEEDS);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of seeds of the level
+	 */
+	public synchronized int size(int showRatio) {
+		List<Builder> level = seeds.get(showRatio);
+		return level == null ? 0 : level.size();
+	}
+
+	/**
+	 * A new puzzle of the level: a random transform of a random seed.  Its seed and shuffle
+	 * build it again, see Builder.transform
+	 * @param random where the choices come from
+	 * @return the puzzle, or null if there are no seeds of the level yet
+	 */
+	public Builder next(int showRatio, Random random) {
+		Builder seed;
+		synchronized (this) {
+			List<Builder> level = seeds.get(showRatio);
+			if (level == null) {
+				return null;
+			}
+			seed = level.get(random.nextInt(level.size()));
+		}
+		return seed.transform(random.nextLong());
+	}
+}
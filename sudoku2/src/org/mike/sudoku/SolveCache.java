@@ -0,0 +1,351 @@
+package org.mike.sudoku;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.jsr107cache.Cache;
+import net.sf.jsr107cache.CacheException;
+import net.sf.jsr107cache.CacheManager;
+
+import org.mike.util.LruCache;
+
+/**
+ * Remembers what solving a puzzle found: the solution, whether it is the only one, and how
+ * hard the puzzle is for the logic solver.  Puzzles are keyed by their canonical form (see
+ * Canonical), so a puzzle that is a relabeled or reflected copy of one we have seen is not
+ * solved again either.
+ *
+ * There are two tiers.  A bounded LRU map in this process is checked first, then an optional
+ * JSR-107 cache, which on App Engine is memcache and is shared by all the instances.  Entries
+ * are stored in the canonical frame and mapped back to the caller's puzzle.  When several
+ * threads miss on the same puzzle at once, one of them solves it and the others wait.
+ */
+public class SolveCache {
+
+	/**
+	 * What we know about a puzzle, in its canonical frame
+	 */
+	public static class Entry implements Serializable {
+		private static final long serialVersionUID = -6052310584124591627L;
+
+		// the solution, 81 digits, or null unless there is exactly one
+		String solution;
+		// 0, 1, or 2 for more than one
+		int solutions;
+		// the logic solver's rating, or a null level if it got stuck
+		String level;
+		int score;
+		String rating;
+
+		/**
+		 * @return the number of solutions, with 2 for more than one
+		 */
+		public int getSolutions() {
+			return solutions;
+		}
+
+		public boolean isUnique() {
+			return solutions == 1;
+		}
+
+		/**
+		 * @return true if the logic solver can do the puzzle, so it has a rating
+		 */
+		public boolean isRated() {
+			return level != null;
+		}
+
+		public String getLevel() {
+			return level;
+		}
+
+		public int getScore() {
+			return score;
+		}
+
+		/**
+		 * @return the rating with the techniques it needed, see Rating.toString
+		 */
+		public String getRating() {
+			return rating;
+		}
+	}
+
+	// entries kept in this process by the shared cache
+	static int SHARED_SIZE = 10000;
+
+	LruCache<String, Entry> local;
+	// the second tier, or null
+	Cache backend;
+	// solves going on now, so a puzzle is only solved once
+	ConcurrentHashMap<String, FutureTask<Entry>> solving = new ConcurrentHashMap<String, FutureTask<Entry>>();
+
+	AtomicLong localHits = new AtomicLong();
+	AtomicLong backendHits = new AtomicLong();
+	AtomicLong misses = new AtomicLong();
+
+	/**
+	 * A cache that only keeps entries in this process
+	 * @param size the most entries to keep
+	 */
+	public SolveCache(int size) {
+		this(size, null);
+	}
+
+	/**
+	 * @param size the most entries to keep in this process
+	 * @param backend where to look when this process doesn't have an entry, or null
+	 */
+	public SolveCache(int size, Cache backend) {
+		local = new LruCache<String, Entry>(size);
+		this.backend = backend;
+	}
+
+	static class Holder {
+		static final SolveCache SHARED = new SolveCache(SHARED_SIZE, backend());
+	}
+
+	/**
+	 * @return the cache the web app shares, backed by memcache if there is one
+	 */
+	public static SolveCache shared() {
+		return Holder.SHARED;
+	}
+
+	/**
+	 * @return the JSR-107 cache of the platform, or null when there isn't one, like when
+	 * running locally.  The bounded map in this process is then the only tier
+	 */
+	static Cache backend() {
+		try {
+			return CacheManager.getInstance().getCacheFactory().createCache(Collections.emptyMap());
+		}
+		catch (CacheException e) {
+			// no cache factory configured
+		}
+		catch (LinkageError e) {
+			// the factory is there, but not the service behind it
+		}
+		catch (RuntimeException e) {
+			// the service is there, but won't start
+		}
+		return null;
+	}
+
+	/**
+	 * The key of a canonical form.  Runs of empty squares are written as one letter, 'a' for
+	 * one, 'b' for two and so on, which takes a typical puzzle from 81 characters to about 50
+	 */
+	static String compact(String form) {
+		StringBuilder sb = new StringBuilder();
+		int zeros = 0;
+		for (int i = 0; i <= form.length(); i++) {
+			char c = i < form.length() ? form.charAt(i) : '-';
+			if (c == '0' && zeros < 26) {
+				zeros++;
+				continue;
+			}
+			if (zeros > 0) {
+				sb.append((char) ('a' + zeros - 1));
+				zeros = c == '0' ? 1 : 0;
+			}
+			if (c != '0' && c != '-') {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return the cache key of the puzzle, the same for every transform of it
+	 */
+	public static String key(Puzzle puzzle) {
+		return compact(Canonical.key(puzzle));
+	}
+
+	/**
+	 * Look the puzzle up, solving it if nobody has yet
+	 */
+	public Entry lookup(Puzzle puzzle) {
+		Canonical canonical = SolverPool.getCanonical();
+		Transform transform = canonical.transform(puzzle);
+		return lookup(compact(canonical.toKey()), transform.apply(puzzle));
+	}
+
+	/**
+	 * Solve the puzzle in place, if it has exactly one solution
+	 * @return the entry for the puzzle
+	 */
+	public Entry solve(Puzzle puzzle) {
+		Canonical canonical = SolverPool.getCanonical();
+		Transform transform = canonical.transform(puzzle);
+		Entry entry = lookup(compact(canonical.toKey()), transform.apply(puzzle));
+		if (entry.solution != null) {
+			// the square at row, col of the canonical form came from transform.sourceCell
+			Transform back = transform.inverse();
+			for (int i = 0; i < 81; i++) {
+				int cell = transform.sourceCell(i / 9, i % 9);
+				puzzle.setSquare(cell / 9, cell % 9, back.getDigit(entry.solution.charAt(i) - '0'));
+			}
+		}
+		return entry;
+	}
+
+	Entry lookup(String key, final Puzzle form) {
+		Entry entry = local.get(key);
+		if (entry != null) {
+			localHits.incrementAndGet();
+			return entry;
+		}
+		entry = fromBackend(key);
+		if (entry != null) {
+			backendHits.incrementAndGet();
+			local.put(key, entry);
+			return entry;
+		}
+
+		FutureTask<Entry> task = new FutureTask<Entry>(new Callable<Entry>() {
+			public Entry call() {
+				return compute(form);
+			}
+		});
+		FutureTask<Entry> running = solving.putIfAbsent(key, task);
+		if (running == null) {
+			misses.incrementAndGet();
+			try {
+				task.run();
+				entry = getDone(task);
+				local.put(key, entry);
+				toBackend(key, entry);
+			} finally {
+				solving.remove(key);
+			}
+			return entry;
+		}
+		return getDone(running);
+	}
+
+	static Entry getDone(FutureTask<Entry> task) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException("Solve failed", e.getCause());
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	Entry fromBackend(String key) {
+		if (backend == null) {
+			return null;
+		}
+		try {
+			Object value = backend.get(key);
+			return value instanceof Entry ? (Entry) value : null;
+		}
+		catch (RuntimeException e) {
+			// the backend is only a cache, so treat trouble as a miss
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	void toBackend(String key, Entry entry) {
+		if (backend == null) {
+			return;
+		}
+		try {
+			backend.put(key, entry);
+		}
+		catch (RuntimeException e) {
+			// next time we solve it again
+		}
+	}
+
+	/*
+	 * Solve the canonical form: dancing links for the solution count, then the logic solver
+	 * for the rating.  The puzzle is filled in
+	 */
+	static Entry compute(Puzzle form) {
+		Entry entry = new Entry();
+		DancingLinks links = SolverPool.getLinks();
+		entry.solutions = links.countSolutions(form, 2);
+		if (entry.solutions != 1) {
+			return entry;
+		}
+		Puzzle solved = new Transform().apply(form);
+		links.storeSolution(solved);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 81; i++) {
+			sb.append(solved.getSquare(i / 9, i % 9));
+		}
+		entry.solution = sb.toString();
+
+		Solver solver = SolverPool.getSolver();
+		try {
+			solver.solve(form);
+			Rating rating = solver.getRating();
+			entry.level = rating.getLevel();
+			entry.score = rating.getScore();
+			entry.rating = rating.toString();
+		}
+		catch (CantSolveException e) {
+			// unique, but too hard for the logic solver
+		}
+		return entry;
+	}
+
+	/**
+	 * @return lookups answered by this process
+	 */
+	public long getLocalHits() {
+		return localHits.get();
+	}
+
+	/**
+	 * @return lookups answered by the backend
+	 */
+	public long getBackendHits() {
+		return backendHits.get();
+	}
+
+	/**
+	 * @return lookups that had to solve the puzzle
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of entries kept in this process
+	 */
+	public int size() {
+		return local.size();
+	}
+
+	/**
+	 * Forget everything in this process.  The backend is left alone
+	 */
+	public void clear() {
+		local.clear();
+	}
+}
@@ -2,17 +2,12 @@ package org.mike.sudoku;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 
 import org.mike.util.Range;
 
-public class Solver {
+public class Solver implements Engine {
 	PrintStream logger;
 	
 	
@@ -48,39 +43,20 @@ public class Solver {
 	}
 	
 	/*
-	 * There are nine elements in each set.  This is the number needed in
+	 * The candidates live in a CandidateGrid, and a pipeline of techniques works on it.
+	 * Both are allocated once, so solving more puzzles with the same solver doesn't
+	 * allocate anything.
 	 */
-
-	@SuppressWarnings("unchecked")
-	Set<Integer>[] colChoices = new Set [9];
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[] rowChoices = new Set[9];
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] boxChoices = new Set[3][3];
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] puzzleChoices = new Set[9][9]; 
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] colNeeds = new Set[9][9]; 
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] rowNeeds = new Set[9][9]; 
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] boxNeeds = new Set[9][9]; 
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] rowEquivalents = new Set[9][9]; 
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] colEquivalents = new Set[9][9]; 
-	
-	@SuppressWarnings("unchecked")
-	Set<Integer>[][] boxEquivalents = new Set[9][9]; 
-
+	CandidateGrid grid = new CandidateGrid();
+	Pipeline pipeline = Pipeline.standard();
+	// what the techniques did during the last solve
+	Rating rating = new Rating(pipeline);
+	// this solver's share of the SolverMetrics, made on the first solve.  active is the
+	// recorder while a solve is being recorded, and null otherwise
+	SolverMetrics.Recorder recorder;
+	SolverMetrics.Recorder active;
+	// the limits of the solve going on now, or null
+	Budget budget;
 	
 	/*
 	 * An inner class to convert 2d box numbers to linear numbers and back
@@ -128,282 +104,60 @@ public class Solver {
 		}
 	}
 	
-	/*
-	 * Create a set of number 1 to 9. 
-	 */
-	Set<Integer> initialSet()
-	{
-		Set<Integer> s = new HashSet<Integer>();
-		for (int i : new Range(9)) {
-			s.add(i+1);
-		}
-		return s;
-	}
-	
 	/*
 	 * return a new set that is the intersect of the two sets
 	 */
 	public <E> Set<E> intersect(Set<E> set1, Set<E> set2) {
-		try {
-			Set<E> res = set1.getClass().getDeclaredConstructor(Collection.class).newInstance(set1);
-			res.retainAll(set2);
-			return res;
-		} catch (InstantiationException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (IllegalAccessException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (IllegalArgumentException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (InvocationTargetException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (NoSuchMethodException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (SecurityException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		return null;
-	}
-	
-	/*
-	 * return a set of a single element
-	 */
-	Set<Integer> oneElem(int i) {
-		Set<Integer> res = new HashSet<Integer>();
-		res.add(i);
+		Set<E> res = new HashSet<E>(set1);
+		res.retainAll(set2);
 		return res;
 	}
 	
-	Set<Integer> phi()
-	{
-		return new HashSet<Integer>();
+	public Pipeline getPipeline() {
+		return pipeline;
 	}
 	
 	/*
-	 * set the row needs
+	 * Use a different set of techniques
 	 */
-	public void setRows()
-	{
-		for (int row : new Range(9)) {
-			rowChoices[row] = initialSet();
-			for (int col : new Range(9)) {
-				rowChoices[row].remove(puzzle.getSquare(row, col));
-			}
+	public void setPipeline(Pipeline pipeline) {
+		this.pipeline = pipeline;
+		rating = new Rating(pipeline);
+		recorder = null;
+		if (grid.trace != null) {
+			grid.trace.start(pipeline);
 		}
 	}
 	
-	/*
-	 * set the column needs
-	 */
-	public void setCols()
-	{
-		for (int col : new Range(9)) {
-			colChoices[col] = initialSet();
-			for (int row : new Range(9)) {
-				colChoices[col].remove(puzzle.getSquare(row, col));
-			}
-		}
+	public Trace getTrace() {
+		return grid.trace;
 	}
 	
 	/*
-	 * set the needs in the boxes
+	 * Record the deductions of each solve in the trace.  null (the default) to stop
 	 */
-	public void setBoxes()
-	{
-		for (int box : new Range(9)) {
-			Set<Integer> res = initialSet();
-			LinearBoxNo lb = new LinearBoxNo(box);
-			for (int b : new Range(9)) {
-				res.remove(puzzle.getSquare(lb.row(b), lb.col(b)));
-			}
-			boxChoices[lb.boxRow()][lb.boxCol()] = res;
-			
-		}
-	}
-	
-	
-	/*
-	 * Now find all the choices we have in the puzzle
-	 */
-	
-	public void fillChoices()
-	{
-		for (int col : new Range(9)) {
-			for (int row : new Range(9)) {
-				int boxCol = col / 3;
-				int boxRow = row / 3;
-				if (puzzle.isFilled(row, col)) {
-					puzzleChoices[row][col] = oneElem(puzzle.getSquare(row, col));
-				}
-				else {
-					puzzleChoices[row][col] = intersect(colChoices[col], intersect(rowChoices[row], boxChoices[boxRow][boxCol]));
-				}
-			}
+	public void setTrace(Trace trace) {
+		grid.trace = trace;
+		if (trace != null) {
+			trace.start(pipeline);
 		}
 	}
 	
 	/*
-	 * This finds the squares that have a unique entry.  Must be called after fillChoices
+	 * The techniques used by the last solve.  This is reused by the next solve
 	 */
-	public void setNeeds()
-	{
-		// remove row dups
-		for (int row : new Range(9)) {
-			for (int col : new Range(9)) {
-				
-				// remove anything in our row
-				rowNeeds[row][col] = new HashSet<Integer>(puzzleChoices[row][col]);
-				for (int r : new Range(9)) {
-					if (r != row) {
-						rowNeeds[row][col].removeAll(puzzleChoices[r][col]);
-					}
-				}
-				// remove anything in our column
-				colNeeds[row][col] = new HashSet<Integer>(puzzleChoices[row][col]);
-				for (int c : new Range(9)) {
-					if (c != col) {
-						colNeeds[row][col].removeAll(puzzleChoices[row][c]);
-					}
-				}
-				// remove anything in our box
-				boxNeeds[row][col] = new HashSet<Integer>(puzzleChoices[row][col]);
-				LinearBoxNo lb = new LinearBoxNo(row/3, col/3);
-				for (int b : new Range(9)) {
-					if (row != lb.row(b) | col != lb.col(b)) {
-						boxNeeds[row][col].removeAll(puzzleChoices[lb.row(b)][lb.col(b)]);
-					}
-				}
-			}
-		}
+	public Rating getRating() {
+		return rating;
 	}
 	
 	/*
-	 * This section deals with equivalent squares.  Equivalent squares are in a box that have the same set of choices.
-	 * the number of boxes is equal to the length of the set, we can remove the equivalences.  For example, suppose 
-	 * that four boxes have the choice set {6, 7, 8, 9}.  This is an equivalency, and this set can be removed from
-	 * the other choices.
-	 */
-	
-	public void findRowEquivalence()
-	{
-		for (int row : new Range(9)) {
-			// This is the map we use to count the equal sets
-			Map<Set<Integer>, Integer> equalSets = new HashMap<Set<Integer>, Integer>();
-			for (int col : new Range(9)) {
-				// initialize the equivalency sets, and start counting possible equivalent sets
-				Set<Integer> s = new HashSet<Integer>(puzzleChoices[row][col]);
-				rowEquivalents[row][col] = new HashSet<Integer>(s);
-				if (! equalSets.containsKey(s)) {
-					equalSets.put(s, 0);
-				}
-				equalSets.put(s, equalSets.get(s) + 1);
-			}
-			
-			// Now go through the equivalency map.  If the set legnth is the same as the square count,
-			// we can remove that set from the others
-			for (Set<Integer> s : equalSets.keySet()) {
-				if (s.size() == equalSets.get(s)) {
-					// this is an equivalent set.  Remove all from all the sets
-					for (int col : new Range(9)) {
-						rowEquivalents[row][col].removeAll(s);
-					}
-				}
-			}
-			
-		}
-	}
-	
-	public void findColEquivalence()
-	{
-		for (int col : new Range(9)) {
-			// This is the map we use to count the equal sets
-			Map<Set<Integer>, Integer> equalSets = new HashMap<Set<Integer>, Integer>();
-			for (int row : new Range(9)) {
-				// initialize the equivalency sets, and start counting possible equivalent sets
-				Set<Integer> s = new HashSet<Integer>(puzzleChoices[row][col]);
-				colEquivalents[row][col] = new HashSet<Integer>(s);
-				if (! equalSets.containsKey(s)) {
-					equalSets.put(s, 0);
-				}
-				equalSets.put(s, equalSets.get(s) + 1);
-			}
-			
-			// Now go through the equivalency map.  If the set legnth is the same as the square count,
-			// we can remove that set from the others
-			for (Set<Integer> s : equalSets.keySet()) {
-				if (s.size() == equalSets.get(s)) {
-					// this is an equivalent set.  Remove all from all the sets
-					for (int row : new Range(9)) {
-						colEquivalents[row][col].removeAll(s);
-					}
-				}
-			}
-			
-		}
-	}
-	
-	
-	
-	
-	public void findBoxEquivalence()
-	{
-		for (int boxNo : new Range(9)) {
-			// get our linear box mapping
-			LinearBoxNo lb = new LinearBoxNo(boxNo);
-			
-			// This is the map we use to count the equal sets
-			Map<Set<Integer>, Integer> equalSets = new HashMap<Set<Integer>, Integer>();
-			for (int i : new Range(9)) {
-				// initialize the equivalency sets, and start counting possible equivalent sets
-				Set<Integer> s = new HashSet<Integer>(puzzleChoices[lb.row(i)][lb.col(i)]);
-				boxEquivalents[lb.row(i)][lb.col(i)] = new HashSet<Integer>(s);
-				if (! equalSets.containsKey(s)) {
-					equalSets.put(s, 0);
-				}
-				equalSets.put(s, equalSets.get(s) + 1);
-			}
-			
-			// Now go through the equivalency map.  If the set legnth is the same as the square count,
-			// we can remove that set from the others
-			for (Set<Integer> s : equalSets.keySet()) {
-				if (s.size() == equalSets.get(s)) {
-					// this is an equivalent set.  Remove all from all the sets
-					for (int i : new Range(9)) {
-						boxEquivalents[lb.row(i)][lb.col(i)].removeAll(s);
-					}
-				}
-			}
-		}
-	}
-	
-	
-	/*
-	 *  Does this square have an answer?  This square has an answer if
-	 * 1. it has not been filled in
-	 * 2. There is only one choice or
-	 * 3. there is only one need
+	 *  Does this square have an answer?  This square has an answer if it has not been
+	 *  filled in, and the last step placed a digit there.  Before step has been run
+	 *  the grid is empty, so there is no answer.
 	 */
 	public boolean hasAnswer(int row, int col) 
 	{
-		if (puzzle.isFilled(row, col)) {
-			return false;
-		}
-		// if puzzleChoices elements are null, step has not been run
-		if (puzzleChoices[row][col] == null) {
-			return false;
-		}
-		return (puzzleChoices[row][col].size() == 1) ||
-				(boxNeeds[row][col].size() == 1) ||
-				(colNeeds[row][col].size() == 1) ||
-				(rowNeeds[row][col].size() == 1) ||
-				(rowEquivalents[row][col].size() == 1) ||
-				(colEquivalents[row][col].size() == 1) ||
-				(boxEquivalents[row][col].size() == 1);
+		return !puzzle.isFilled(row, col) && !grid.hasContradiction() && grid.getValue(row * 9 + col) != 0;
 	}
 	
 	public boolean isSolved()
@@ -412,12 +166,6 @@ public class Solver {
 	}
 	
 	
-	int getElem(Set<Integer>[][] set, int row, int col)
-	{
-		Iterator<Integer> itr = set[row][col].iterator();
-		return itr.next().intValue();
-	}
-	
 	/*
 	 * getAnswer.  Get the answer to the puzzle, return 0 if it doesn't have one
 	 */
@@ -426,28 +174,7 @@ public class Solver {
 		if (!hasAnswer(row, col)) {
 			return 0;
 		}
-		if (puzzleChoices[row][col].size() == 1) {
-			return getElem(puzzleChoices, row, col);
-		}
-		if (rowNeeds[row][col].size() == 1) {
-			return getElem(rowNeeds, row, col);
-		}
-		if (colNeeds[row][col].size() == 1) {
-			return getElem(colNeeds, row, col);
-		}
-		if (boxNeeds[row][col].size() == 1) {
-			return getElem(boxNeeds, row, col);
-		}
-		if (rowEquivalents[row][col].size() == 1) {
-			return getElem(rowEquivalents, row, col);
-		}
-		if (colEquivalents[row][col].size() == 1) {
-			return getElem(colEquivalents, row, col);
-		}
-		if (boxEquivalents[row][col].size() == 1) {
-			return getElem(boxEquivalents, row, col);
-		}
-		return 0;
+		return grid.getValue(row * 9 + col);
 	}
 	
 	
@@ -456,8 +183,8 @@ public class Solver {
 	 */
 	public boolean madeProgress()
 	{
-		for (int row : new Range(9)) {
-			for (int col : new Range(9)) {
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
 				if (hasAnswer(row, col)) {
 					return true;
 				}
@@ -467,24 +194,38 @@ public class Solver {
 	}
 	
 	/*
-	 * Solver step. Fill the rows, columns and boxes, then get the choices
+	 * Solver step.  Load the candidates from the puzzle, then run the techniques, cheapest
+	 * first, until one of them places a digit.
 	 */
 	public void step()
 	{
-		setRows();
-		setCols();
-		setBoxes();
-		fillChoices();
-		setNeeds();
-		findRowEquivalence();
-		findColEquivalence();
-		findBoxEquivalence();
+		load();
+		pipeline.run(grid, true, rating, active, budget);
+	}
+	
+	/*
+	 * Load the grid from the puzzle, counting it if we are recording, and now and then
+	 * timing it
+	 */
+	void load() {
+		if (active == null) {
+			grid.load(puzzle);
+		}
+		else if (active.sample()) {
+			long start = System.nanoTime();
+			grid.load(puzzle);
+			active.load(System.nanoTime() - start);
+		}
+		else {
+			grid.load(puzzle);
+			active.load();
+		}
 	}
 	
 	public void fillAnswers()
 	{
-		for (int row : new Range(9)) {
-			for (int col : new Range(9)) {
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
 				if (hasAnswer(row, col)) {
 					puzzle.setSquare(row, col, getAnswer(row, col));
 				}
@@ -494,11 +235,106 @@ public class Solver {
 	
 	int solveTries;
 	
+	// incremental mode keeps one grid for the whole solve instead of stepping
+	boolean incremental = false;
+	
+	public boolean isIncremental() {
+		return incremental;
+	}
+	
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+	
+	/*
+	 * Start over on a new puzzle.  The grid and pipeline are kept, so a solver can be
+	 * reused for any number of puzzles (see SolverPool).  The settings (incremental,
+	 * pipeline, logger) are not changed.
+	 */
+	public void reset(Puzzle puzzle) {
+		this.puzzle = puzzle;
+		solveTries = 0;
+		rating.reset();
+		grid.load(puzzle);
+	}
+	
+	/*
+	 * Solve a new puzzle with this solver
+	 */
+	public void solve(Puzzle puzzle) throws CantSolveException {
+		this.puzzle = puzzle;
+		solve();
+	}
+
+	/*
+	 * Solve a new puzzle, giving up when the budget runs out.  The digits found by then are
+	 * in the puzzle
+	 */
+	public void solve(Puzzle puzzle, Budget budget) throws CantSolveException {
+		this.puzzle = puzzle;
+		this.budget = budget;
+		try {
+			solve();
+		} finally {
+			this.budget = null;
+		}
+	}
+	
 	public void solve() throws CantSolveException {
+		SolverMetrics metrics = SolverMetrics.get();
+		if (metrics.isEnabled()) {
+			if (recorder == null) {
+				recorder = metrics.recorder(pipeline);
+			}
+			active = recorder;
+		}
 		solveTries = 0;
+		rating.reset();
+		if (grid.trace != null) {
+			grid.trace.start(pipeline);
+		}
+		try {
+			if (incremental) {
+				solveIncremental();
+			}
+			else {
+				solveSteps();
+			}
+			if (active != null) {
+				active.flush(rating, solveTries, metrics.solved);
+			}
+		} catch (InvalidPuzzleException e) {
+			if (active != null) {
+				active.flush(rating, solveTries, metrics.invalid);
+			}
+			throw e;
+		} catch (BudgetExceededException e) {
+			// out of time or cancelled, which says nothing about how hard the puzzle is
+			if (active != null) {
+				active.flush(rating, solveTries, metrics.stopped);
+			}
+			throw e;
+		} catch (CantSolveException e) {
+			if (active != null) {
+				active.flush(rating, solveTries, metrics.stuck);
+			}
+			throw e;
+		} finally {
+			active = null;
+		}
+	}
+	
+	void solveSteps() throws CantSolveException {
 		while (true) {
 			solveTries++;
 			step();
+			if (grid.hasContradiction()) {
+				throw new InvalidPuzzleException("Puzzle has no solution");
+			}
+			if (budget != null && budget.getExceeded() != null) {
+				fillAnswers();
+				throw new BudgetExceededException(budget);
+			}
 			if (!madeProgress()) {
 				throw new CantSolveException("Sorry!!!");
 			}
@@ -509,6 +345,26 @@ public class Solver {
 		}
 	}
 	
+	/*
+	 * Solve by propagation.  The grid is loaded once, and the pipeline runs until nothing
+	 * changes.  Each try is a technique that changed the grid.  The digits found are written
+	 * back to the puzzle even if we get stuck.
+	 */
+	void solveIncremental() throws CantSolveException {
+		load();
+		solveTries = pipeline.run(grid, false, rating, active, budget);
+		if (grid.hasContradiction()) {
+			throw new InvalidPuzzleException("Puzzle has no solution");
+		}
+		grid.store(puzzle);
+		if (budget != null && budget.getExceeded() != null && !grid.isSolved()) {
+			throw new BudgetExceededException(budget);
+		}
+		if (!grid.isSolved()) {
+			throw new CantSolveException("Sorry!!!");
+		}
+	}
+	
 	public int getSolveTries() {
 		return solveTries;
 	}
@@ -520,64 +376,41 @@ public class Solver {
 	
 	public void printChoices()
 	{
-		logger.println("Row ---");
-		printFlat(rowChoices);
-		logger.println("Col ---");
-		printFlat(colChoices);
-		logger.println("Box ---");
-		for (int r : new Range(3)) {
-			for (int c : new Range(3)) {
-				logger.println(r +", " + c + ": " + boxChoices[r][c]);
-			}
-		}
 		logger.println("Choices ---");
-		printArray(puzzleChoices);
+		for (int cell = 0; cell < 81; cell++) {
+			choices[cell / 9][cell % 9] = grid.getCandidates(cell);
+		}
+		printArray(choices);
 	}
 	
-	public void printNeeds() {
-		logger.println("Row needs ---");
-		printArray(rowNeeds);
-		
-		logger.println("Col needs ---");
-		printArray(colNeeds);
-		
-		logger.println("Box needs ---");
-		printArray(boxNeeds);
-	}
-
-	public void printEquivalents()
+	public void printAnswers()
 	{
-		logger.println("Row equivalents ---");
-		printArray(rowEquivalents);
-		
-		logger.println("Col equivalents ---");
-		printArray(colEquivalents);
-		
-		logger.println("Box equivalents ---");
-		printArray(boxEquivalents);
+		logger.println("Answers ---");
+		for (int row : new Range(9)) {
+			for (int col : new Range(9)) {
+				if (hasAnswer(row, col)) {
+					logger.println(row + ", " + col + ": " + getAnswer(row, col));
+				}
+			}
+		}
 	}
 	
 	public void printSolverInfo()
 	{
 		printChoices();
-		printNeeds();
-		printEquivalents();
+		printAnswers();
 	}
 	
-	public void printFlat(Set<Integer>[] ary) 
-	{
-		for (int i : new Range(9)) {
-			logger.println(i + ": " + ary[i]);
-		}
-	}
+	// the candidates as a 9 x 9 array, for printing
+	int[][] choices = new int[9][9];
 
-	public void printArray(Set<Integer>[][] ary)
+	public void printArray(int[][] ary)
 	{
 		logger.println("  ... by Row");
 		for (int row : new Range(9)) {
 			for (int col : new Range(9)) {
 				logger.print(row + ", " + (col + ": "));
-				logger.print(ary[row][col].toString());
+				logger.print(Digits.toString(ary[row][col]));
 				if (puzzle.isFilled(row, col)) {
 					logger.print(" <= filled");
 				}
@@ -590,7 +423,7 @@ public class Solver {
 		for (int col : new Range(9)) {
 			for (int row : new Range(9)) {
 				logger.print(row + ", " + (col + ": "));
-				logger.print(ary[row][col].toString());
+				logger.print(Digits.toString(ary[row][col]));
 				if (puzzle.isFilled(row, col)) {
 					logger.print(" <= filled");
 				}
@@ -605,7 +438,7 @@ public class Solver {
 				LinearBoxNo lb = new LinearBoxNo(boxRow, boxCol);
 				for (int b : new Range(9)) {
 					logger.print(lb.row(b) + ", " + (lb.col(b)) + ": ");
-					logger.print(ary[lb.row(b)][lb.col(b)].toString());
+					logger.print(Digits.toString(ary[lb.row(b)][lb.col(b)]));
 					if (puzzle.isFilled(lb.row(b), lb.col(b))) {
 						logger.print(" <== filled");
 					}
@@ -0,0 +1,313 @@
+package org.mike.sudoku;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.mike.util.StripedCounter;
+
+/**
+ * Where the logic solver spends its time, for all the solvers in the process.  Counts
+ * solves by outcome, solve tries, grid loads and, for each technique, how often it was
+ * tried, how often it changed the grid, and how long it took.
+ *
+ * Each solver keeps its own plain counters during a solve (see Recorder) and adds them to
+ * the shared striped counters once at the end, so recording is cheap enough to leave on.
+ * The counts are exact, but reading the clock around every technique would cost more than
+ * the cheap techniques themselves, so only about one application or load in SAMPLE is timed,
+ * and the times are scaled up from the sample.  The metrics are published as a JMX MBean
+ * where the platform allows it (App Engine doesn't).
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+	public static final String NAME = "org.mike.sudoku:type=SolverMetrics";
+	static final int BUCKETS = 17;
+	// about one in this many technique applications and grid loads is timed.  A power of 2
+	static final int SAMPLE = 64;
+
+	static final SolverMetrics instance = new SolverMetrics();
+
+	static {
+		register(instance);
+	}
+
+	public static SolverMetrics get() {
+		return instance;
+	}
+
+	/*
+	 * The shared counters for one technique.  Techniques are told apart by name, so
+	 * different pipelines with the same technique add up together
+	 */
+	static class TechniqueStats {
+		String name;
+		StripedCounter applications = new StripedCounter();
+		StripedCounter fires = new StripedCounter();
+		// the applications that were timed, and their time
+		StripedCounter timed = new StripedCounter();
+		StripedCounter nanos = new StripedCounter();
+
+		TechniqueStats(String name) {
+			this.name = name;
+		}
+	}
+
+	/*
+	 * The counters of one solver, for one solve.  Only the solver's thread touches them
+	 */
+	static class Recorder {
+		TechniqueStats[] stats;
+		long[] applications;
+		long[] timed;
+		long[] nanos;
+		long loads;
+		long timedLoads;
+		long loadNanos;
+		// xorshift state for picking what to time.  A counter would always pick the same
+		// technique when the pipeline runs in a cycle
+		int sample = 0x2545f491;
+
+		Recorder(TechniqueStats[] stats) {
+			this.stats = stats;
+			applications = new long[stats.length];
+			timed = new long[stats.length];
+			nanos = new long[stats.length];
+		}
+
+		/*
+		 * Should the next application or load be timed?
+		 */
+		boolean sample() {
+			sample ^= sample << 13;
+			sample ^= sample >>> 17;
+			sample ^= sample << 5;
+			return (sample & (SAMPLE - 1)) == 0;
+		}
+
+		void load() {
+			loads++;
+		}
+
+		void load(long time) {
+			loads++;
+			timedLoads++;
+			loadNanos += time;
+		}
+
+		/*
+		 * Technique i of the pipeline ran
+		 */
+		void technique(int i) {
+			applications[i]++;
+		}
+
+		void technique(int i, long time) {
+			applications[i]++;
+			timed[i]++;
+			nanos[i] += time;
+		}
+
+		/*
+		 * Add this solve to the shared counters, and start over
+		 */
+		void flush(Rating rating, int tries, StripedCounter outcome) {
+			SolverMetrics metrics = instance;
+			outcome.increment();
+			metrics.tries[Math.min(BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(tries))].increment();
+			metrics.loads.add(loads);
+			if (timedLoads > 0) {
+				metrics.timedLoads.add(timedLoads);
+				metrics.loadNanos.add(loadNanos);
+			}
+			for (int i = 0; i < stats.length; i++) {
+				if (applications[i] > 0) {
+					stats[i].applications.add(applications[i]);
+					stats[i].fires.add(rating.fires[i]);
+				}
+				if (timed[i] > 0) {
+					stats[i].timed.add(timed[i]);
+					stats[i].nanos.add(nanos[i]);
+				}
+				applications[i] = 0;
+				timed[i] = 0;
+				nanos[i] = 0;
+			}
+			loads = 0;
+			timedLoads = 0;
+			loadNanos = 0;
+		}
+	}
+
+	volatile boolean enabled = true;
+
+	StripedCounter solved = new StripedCounter();
+	StripedCounter stuck = new StripedCounter();
+	StripedCounter invalid = new StripedCounter();
+	StripedCounter stopped = new StripedCounter();
+	StripedCounter loads = new StripedCounter();
+	StripedCounter timedLoads = new StripedCounter();
+	StripedCounter loadNanos = new StripedCounter();
+	StripedCounter[] tries = new StripedCounter[BUCKETS];
+	// in the order the techniques were first seen.  Guarded by this
+	List<TechniqueStats> techniques = new ArrayList<TechniqueStats>();
+
+	SolverMetrics() {
+		for (int i = 0; i < BUCKETS; i++) {
+			tries[i] = new StripedCounter();
+		}
+	}
+
+	/*
+	 * A recorder for a solver that uses this pipeline
+	 */
+	synchronized Recorder recorder(Pipeline pipeline) {
+		TechniqueStats[] stats = new TechniqueStats[pipeline.techniques.length];
+		for (int i = 0; i < stats.length; i++) {
+			String name = pipeline.techniques[i].getName();
+			for (TechniqueStats s : techniques) {
+				if (s.name.equals(name)) {
+					stats[i] = s;
+				}
+			}
+			if (stats[i] == null) {
+				stats[i] = new TechniqueStats(name);
+				techniques.add(stats[i]);
+			}
+		}
+		return new Recorder(stats);
+	}
+
+	public long getSolved() {
+		return solved.sum();
+	}
+
+	public long getStuck() {
+		return stuck.sum();
+	}
+
+	public long getInvalid() {
+		return invalid.sum();
+	}
+
+	public long getStopped() {
+		return stopped.sum();
+	}
+
+	public long getLoads() {
+		return loads.sum();
+	}
+
+	public long getLoadNanos() {
+		return scale(loadNanos.sum(), timedLoads.sum(), loads.sum());
+	}
+
+	/*
+	 * The time of all of them, from the time of the ones timed
+	 */
+	static long scale(long nanos, long timed, long all) {
+		return timed == 0 ? 0 : (long) ((double) nanos * all / timed);
+	}
+
+	public synchronized String[] getTechniques() {
+		String[] names = new String[techniques.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = techniques.get(i).name;
+		}
+		return names;
+	}
+
+	public synchronized long[] getApplications() {
+		long[] sums = new long[techniques.size()];
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] = techniques.get(i).applications.sum();
+		}
+		return sums;
+	}
+
+	public synchronized long[] getFires() {
+		long[] sums = new long[techniques.size()];
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] = techniques.get(i).fires.sum();
+		}
+		return sums;
+	}
+
+	public synchronized long[] getTechniqueNanos() {
+		long[] sums = new long[techniques.size()];
+		for (int i = 0; i < sums.length; i++) {
+			TechniqueStats s = techniques.get(i);
+			sums[i] = scale(s.nanos.sum(), s.timed.sum(), s.applications.sum());
+		}
+		return sums;
+	}
+
+	public long[] getTriesHistogram() {
+		long[] sums = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			sums[i] = tries[i].sum();
+		}
+		return sums;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/*
+	 * Turn recording on or off for solves that start from now on
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public synchronized void reset() {
+		solved.reset();
+		stuck.reset();
+		invalid.reset();
+		stopped.reset();
+		loads.reset();
+		timedLoads.reset();
+		loadNanos.reset();
+		for (StripedCounter counter : tries) {
+			counter.reset();
+		}
+		for (TechniqueStats s : techniques) {
+			s.applications.reset();
+			s.fires.reset();
+			s.timed.reset();
+			s.nanos.reset();
+		}
+	}
+
+	/*
+	 * Publish the metrics over JMX.  Anything going wrong here is not worth failing a solve
+	 * for, so the metrics just stay local
+	 */
+	static void register(SolverMetrics metrics) {
+		try {
+			Jmx.register(metrics);
+		}
+		catch (LinkageError e) {
+			// no java.lang.management, like on App Engine
+		}
+		catch (SecurityException e) {
+			// not allowed here
+		}
+	}
+
+	/*
+	 * Keeps the management classes out of SolverMetrics, so it loads without them
+	 */
+	static class Jmx {
+		static void register(Object mbean) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(NAME));
+			}
+			catch (JMException e) {
+				// already registered, e.g. by an earlier copy of the web app
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package org.mike.sudoku;
+
+/**
+ * The solver statistics, as seen over JMX.  The technique arrays are in the order of
+ * getTechniques().  Times are in nanoseconds.
+ */
+public interface SolverMetricsMBean {
+
+	long getSolved();
+
+	/**
+	 * @return solves the techniques couldn't finish
+	 */
+	long getStuck();
+
+	long getInvalid();
+
+	/**
+	 * @return solves stopped by their budget: out of time, out of steps, or cancelled
+	 */
+	long getStopped();
+
+	/**
+	 * @return how many times a grid was loaded from a puzzle.  Once per solve in
+	 * incremental mode, once per step otherwise
+	 */
+	long getLoads();
+
+	/**
+	 * @return the time spent loading grids, scaled up from the loads that were timed
+	 */
+	long getLoadNanos();
+
+	String[] getTechniques();
+
+	/**
+	 * @return how many times each technique was tried
+	 */
+	long[] getApplications();
+
+	/**
+	 * @return how many times each technique changed the grid
+	 */
+	long[] getFires();
+
+	/**
+	 * @return the time spent in each technique, scaled up from the applications that were
+	 * timed
+	 */
+	long[] getTechniqueNanos();
+
+	/**
+	 * @return solves by solve tries.  Bucket 0 is no tries, and bucket i holds 2^(i-1) up
+	 * to 2^i - 1 tries
+	 */
+	long[] getTriesHistogram();
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	void reset();
+}
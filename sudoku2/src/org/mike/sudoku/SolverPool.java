@@ -0,0 +1,83 @@
+package org.mike.sudoku;
+
+/**
+ * One incremental logic solver and one dancing links engine per thread.  The app runs
+ * threadsafe, so requests can build puzzles at the same time, but a thread only ever works
+ * on one puzzle at a time.  Keeping the engines thread confined means a request thread can
+ * run thousands of solves without allocating new solver state, and without any locking.
+ *
+ * The engines are reset for every puzzle they are given.  Don't hold on to one across a
+ * call that might use the pool itself, and don't change the settings of the pooled solver.
+ */
+public final class SolverPool {
+
+	private static ThreadLocal<Solver> solvers = new ThreadLocal<Solver>() {
+		@Override
+		protected Solver initialValue() {
+			Solver solver = new Solver();
+			solver.setIncremental(true);
+			return solver;
+		}
+	};
+
+	private static ThreadLocal<DancingLinks> links = new ThreadLocal<DancingLinks>() {
+		@Override
+		protected DancingLinks initialValue() {
+			return new DancingLinks();
+		}
+	};
+
+	private static ThreadLocal<BitSliceSolver> slicers = new ThreadLocal<BitSliceSolver>() {
+		@Override
+		protected BitSliceSolver initialValue() {
+			return new BitSliceSolver();
+		}
+	};
+
+	private static ThreadLocal<Canonical> canonicals = new ThreadLocal<Canonical>() {
+		@Override
+		protected Canonical initialValue() {
+			return new Canonical();
+		}
+	};
+
+	private SolverPool() {
+	}
+
+	/**
+	 * @return the incremental logic solver of the current thread
+	 */
+	public static Solver getSolver() {
+		return solvers.get();
+	}
+
+	/**
+	 * @return the logic solver of the current thread, reset to the puzzle
+	 */
+	public static Solver getSolver(Puzzle puzzle) {
+		Solver solver = solvers.get();
+		solver.reset(puzzle);
+		return solver;
+	}
+
+	/**
+	 * @return the dancing links engine of the current thread
+	 */
+	public static DancingLinks getLinks() {
+		return links.get();
+	}
+
+	/**
+	 * @return the bit sliced batch solver of the current thread
+	 */
+	public static BitSliceSolver getBitSliceSolver() {
+		return slicers.get();
+	}
+
+	/**
+	 * @return the canonical form finder of the current thread
+	 */
+	public static Canonical getCanonical() {
+		return canonicals.get();
+	}
+}
@@ -0,0 +1,286 @@
+package org.mike.sudoku;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line solver for puzzle files with one 81 character puzzle per line.  Anything
+ * that isn't 1 to 9 is an empty square.
+ *
+ * The input is read from a memory mapped file, or from standard input, in batches of
+ * lines.  The batches are solved on a thread pool and written out in input order.  Only a
+ * few batches per thread are in flight at a time, so the whole file is never in memory.
+ *
+ * Each output line is the puzzle as far as it was solved, with '.' for empty squares.
+ *
+ * With -sliced, the puzzles are solved 64 at a time by the bit sliced singles, and only the
+ * ones they can't finish go to the logic solver.  The output is the same.
+ *
+ * usage: StreamSolver [-links | -sliced] [-threads n] [file]
+ */
+public class StreamSolver {
+	static int BATCH = 4096;
+	// batches in flight per thread
+	static int WINDOW = 4;
+
+	boolean links;
+	// solve 64 puzzles at a time with the bit sliced singles (see BitSliceSolver)
+	boolean sliced;
+	int threads;
+
+	AtomicLong solved = new AtomicLong();
+	AtomicLong stuck = new AtomicLong();
+	AtomicLong invalid = new AtomicLong();
+
+	public StreamSolver(boolean links, int threads) {
+		this.links = links;
+		this.threads = threads;
+	}
+
+	/*
+	 * A source of puzzle lines
+	 */
+	static abstract class LineSource {
+		/*
+		 * The next byte, or -1 at the end of the input
+		 */
+		abstract int read() throws IOException;
+
+		/*
+		 * Copy the next non empty line into the buffer, padded with '.' to 81 characters.
+		 * Returns false at the end of the input
+		 */
+		boolean next(byte[] buffer, int offset) throws IOException {
+			while (true) {
+				int len = 0;
+				int b;
+				while ((b = read()) >= 0 && b != '\n') {
+					if (len < 81 && b != '\r') {
+						buffer[offset + len++] = (byte) b;
+					}
+				}
+				if (len > 0) {
+					for (int i = len; i < 81; i++) {
+						buffer[offset + i] = '.';
+					}
+					return true;
+				}
+				if (b < 0) {
+					return false;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Lines from a buffered stream, like standard input
+	 */
+	static class StreamSource extends LineSource {
+		InputStream in;
+
+		StreamSource(InputStream in) {
+			this.in = new BufferedInputStream(in, 1 << 16);
+		}
+
+		int read() throws IOException {
+			return in.read();
+		}
+	}
+
+	/*
+	 * Lines from a memory mapped file.  Large files are mapped a piece at a time
+	 */
+	static class MappedSource extends LineSource {
+		static long CHUNK = 1 << 28;
+
+		FileChannel channel;
+		long fileSize;
+		long base;
+		MappedByteBuffer map;
+
+		MappedSource(RandomAccessFile file) throws IOException {
+			channel = file.getChannel();
+			fileSize = channel.size();
+			remap(0);
+		}
+
+		void remap(long position) throws IOException {
+			base = position;
+			map = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(CHUNK, fileSize - base));
+		}
+
+		int read() throws IOException {
+			if (!map.hasRemaining()) {
+				if (base + map.limit() >= fileSize) {
+					return -1;
+				}
+				remap(base + map.limit());
+			}
+			return map.get();
+		}
+	}
+
+	/*
+	 * Solve a batch of lines, and format the output lines
+	 */
+	class Batch implements Callable<byte[]> {
+		byte[] lines;
+		int count;
+
+		Batch(byte[] lines, int count) {
+			this.lines = lines;
+			this.count = count;
+		}
+
+		public byte[] call() {
+			byte[] out = new byte[count * 82];
+			if (sliced) {
+				Puzzle[] puzzles = new Puzzle[count];
+				BatchSolver.Result[] results = new BatchSolver.Result[count];
+				for (int i = 0; i < count; i++) {
+					puzzles[i] = new Puzzle();
+					puzzles[i].readBoard(lines, i * 81);
+				}
+				SolverPool.getBitSliceSolver().solveAll(puzzles, results);
+				for (int i = 0; i < count; i++) {
+					write(results[i], out, i * 82);
+				}
+				return out;
+			}
+			Engine engine = links ? SolverPool.getLinks() : SolverPool.getSolver();
+			Puzzle puzzle = new Puzzle();
+			for (int i = 0; i < count; i++) {
+				puzzle.readBoard(lines, i * 81);
+				write(BatchSolver.solveOne(puzzle, engine), out, i * 82);
+			}
+			return out;
+		}
+
+		/*
+		 * Count the result, and format the puzzle as an output line
+		 */
+		void write(BatchSolver.Result result, byte[] out, int o) {
+			switch (result.getStatus()) {
+			case SOLVED:
+				solved.incrementAndGet();
+				break;
+			case STUCK:
+				stuck.incrementAndGet();
+				break;
+			case INVALID:
+				invalid.incrementAndGet();
+				break;
+			}
+			Puzzle puzzle = result.getPuzzle();
+			for (int row = 0; row < 9; row++) {
+				for (int col = 0; col < 9; col++) {
+					out[o++] = (byte) (puzzle.isFilled(row, col) ? '0' + puzzle.getSquare(row, col) : '.');
+				}
+			}
+			out[o] = '\n';
+		}
+	}
+
+	/**
+	 * Solve every line of the source, and write the results in the same order
+	 */
+	public void run(LineSource source, OutputStream out) throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<Future<byte[]>>();
+		try {
+			boolean more = true;
+			while (more) {
+				byte[] lines = new byte[BATCH * 81];
+				int count = 0;
+				while (count < BATCH && (more = source.next(lines, count * 81))) {
+					count++;
+				}
+				if (count > 0) {
+					inFlight.add(pool.submit(new Batch(lines, count)));
+				}
+				// wait for the oldest batch when the window is full, or at the end
+				while (inFlight.size() >= threads * WINDOW || (!more && !inFlight.isEmpty())) {
+					out.write(inFlight.remove().get());
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IOException("Solver failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+			out.flush();
+		}
+	}
+
+	public void setSliced(boolean sliced) {
+		this.sliced = sliced;
+	}
+
+	public long getSolved() {
+		return solved.get();
+	}
+
+	public long getStuck() {
+		return stuck.get();
+	}
+
+	public long getInvalid() {
+		return invalid.get();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		boolean links = false;
+		boolean sliced = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String fileName = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-links")) {
+				links = true;
+			}
+			else if (args[i].equals("-sliced")) {
+				sliced = true;
+			}
+			else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else if (fileName == null && !args[i].startsWith("-")) {
+				fileName = args[i];
+			}
+			else {
+				System.err.println("usage: StreamSolver [-links | -sliced] [-threads n] [file]");
+				System.exit(2);
+			}
+		}
+
+		StreamSolver solver = new StreamSolver(links, threads);
+		solver.setSliced(sliced && !links);
+		OutputStream out = new BufferedOutputStream(System.out, 1 << 16);
+		long start = System.nanoTime();
+		if (fileName == null) {
+			solver.run(new StreamSource(System.in), out);
+		}
+		else {
+			RandomAccessFile file = new RandomAccessFile(fileName, "r");
+			try {
+				solver.run(new MappedSource(file), out);
+			} finally {
+				file.close();
+			}
+		}
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.err.println("solved " + solver.getSolved() + ", stuck " + solver.getStuck() + ", invalid "
+				+ solver.getInvalid() + " in " + millis + " ms");
+	}
+}
@@ -0,0 +1,27 @@
+package org.mike.sudoku;
+
+/**
+ * One way of finding digits or removing candidates, like a person would.  Techniques are
+ * run by a Pipeline, cheapest first.
+ */
+public interface Technique {
+
+	/**
+	 * @return a short name, used when reporting what the solver did
+	 */
+	String getName();
+
+	/**
+	 * @return relative cost of one application.  The pipeline runs cheaper techniques first,
+	 * and only gets to the expensive ones when the cheap ones find nothing
+	 */
+	int getCost();
+
+	/**
+	 * Look for placements or eliminations, and make them in the grid.
+	 * @param grid the candidates
+	 * @return the number of digits placed plus the number of candidates eliminated, so 0 if
+	 * the grid didn't change
+	 */
+	int apply(CandidateGrid grid);
+}
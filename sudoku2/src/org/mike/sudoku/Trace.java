@@ -0,0 +1,201 @@
+package org.mike.sudoku;
+
+/**
+ * A record of the deductions made during a solve: which technique placed or eliminated
+ * which digits in which square, and in which pass.  The events are packed into longs in a
+ * fixed size ring buffer, so recording doesn't allocate or format anything, and a long
+ * solve keeps only the latest events.  Render the trace with toText or toJson once the solve
+ * is done.
+ *
+ * A solver that isn't incremental loads the grid again for every step, and the techniques
+ * find the same eliminations again each time.  The trace only records what it hasn't seen
+ * in this solve, so each deduction shows up once, in the pass that first made it, in both
+ * modes.
+ *
+ * A solver without a trace (the default) pays one null check per technique and per grid
+ * change.  A trace is filled by one solver at a time.
+ */
+public class Trace {
+	static final int PLACED = 0;
+	static final int ELIMINATED = 1;
+	// in seen, the square has been placed
+	static final int SEEN_PLACED = 1 << 9;
+
+	Technique[] techniques;
+	long[] events;
+	// events recorded since the solve started.  Only the last events.length are kept
+	long count;
+	// the technique now running, -1 while the givens are loaded
+	int technique = -1;
+	// the pass now running.  Passes that change nothing don't count
+	int pass;
+	// count when the technique started
+	long passStart;
+	// for each square, the digits already recorded as eliminated, and SEEN_PLACED
+	int[] seen = new int[81];
+
+	/**
+	 * A trace that keeps the last capacity events
+	 */
+	public Trace(int capacity) {
+		events = new long[capacity];
+	}
+
+	public Trace() {
+		this(1024);
+	}
+
+	/*
+	 * A new solve with these techniques
+	 */
+	void start(Pipeline pipeline) {
+		techniques = pipeline.techniques;
+		count = 0;
+		pass = 1;
+		passStart = 0;
+		technique = -1;
+		for (int cell = 0; cell < 81; cell++) {
+			seen[cell] = 0;
+		}
+	}
+
+	/*
+	 * The grid is being loaded, so what follows are givens, not deductions
+	 */
+	void load() {
+		technique = -1;
+	}
+
+	/*
+	 * Technique i of the pipeline is about to run.  A new pass starts if the last technique
+	 * changed anything
+	 */
+	void begin(int i) {
+		if (count > passStart) {
+			pass++;
+			passStart = count;
+		}
+		technique = i;
+	}
+
+	void placed(int cell, int digit) {
+		if (technique < 0 || (seen[cell] & SEEN_PLACED) != 0) {
+			return;
+		}
+		seen[cell] |= SEEN_PLACED;
+		record(PLACED, cell, Digits.bit(digit));
+	}
+
+	void eliminated(int cell, int mask) {
+		mask &= ~seen[cell];
+		if (technique < 0 || mask == 0) {
+			return;
+		}
+		seen[cell] |= mask;
+		record(ELIMINATED, cell, mask);
+	}
+
+	/*
+	 * pass (32 bits) | technique (8) | kind (1) | digit mask (9) | cell (7)
+	 */
+	void record(int kind, int cell, int mask) {
+		if (technique < 0) {
+			return;
+		}
+		events[(int) (count % events.length)] = (long) pass << 32 | technique << 17 | kind << 16 | mask << 7 | cell;
+		count++;
+	}
+
+	/**
+	 * @return the number of events kept
+	 */
+	public int size() {
+		return (int) Math.min(count, events.length);
+	}
+
+	/**
+	 * @return the number of older events that didn't fit
+	 */
+	public long getDropped() {
+		return count - size();
+	}
+
+	long event(int i) {
+		return events[(int) ((count - size() + i) % events.length)];
+	}
+
+	public int getPass(int i) {
+		return (int) (event(i) >>> 32);
+	}
+
+	public String getTechnique(int i) {
+		return techniques[(int) (event(i) >>> 17) & 0xff].getName();
+	}
+
+	public int getCell(int i) {
+		return (int) event(i) & 0x7f;
+	}
+
+	public boolean isPlacement(int i) {
+		return ((event(i) >>> 16) & 1) == PLACED;
+	}
+
+	/**
+	 * @return the digit placed, or the digits eliminated, as a mask with digit d in bit d - 1
+	 */
+	public int getDigits(int i) {
+		return (int) (event(i) >>> 7) & Digits.ALL;
+	}
+
+	/**
+	 * One line per event, e.g. "pass 3, hidden single: r2c5 = 7" or
+	 * "pass 4, locked candidates: r1c4 - [5]".  Rows and columns count from 1
+	 */
+	public String toText() {
+		StringBuilder sb = new StringBuilder();
+		if (getDropped() > 0) {
+			sb.append("... ").append(getDropped()).append(" earlier events\n");
+		}
+		for (int i = 0; i < size(); i++) {
+			int cell = getCell(i);
+			sb.append("pass ").append(getPass(i)).append(", ").append(getTechnique(i)).append(": r").append(cell / 9 + 1)
+					.append('c').append(cell % 9 + 1);
+			if (isPlacement(i)) {
+				sb.append(" = ").append(Digits.first(getDigits(i)));
+			}
+			else {
+				sb.append(" - ").append(Digits.toString(getDigits(i)));
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * {"dropped": 0, "events": [{"pass": 3, "technique": "hidden single", "cell": 13, "placed": 7}, ...]}
+	 * Cells are numbered 0 to 80 in row order.  Eliminations have "eliminated": [digits]
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"dropped\": ").append(getDropped()).append(", \"events\": [");
+		for (int i = 0; i < size(); i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append("{\"pass\": ").append(getPass(i)).append(", \"technique\": \"").append(getTechnique(i))
+					.append("\", \"cell\": ").append(getCell(i));
+			if (isPlacement(i)) {
+				sb.append(", \"placed\": ").append(Digits.first(getDigits(i)));
+			}
+			else {
+				sb.append(", \"eliminated\": ").append(Digits.toString(getDigits(i)));
+			}
+			sb.append('}');
+		}
+		return sb.append("]}").toString();
+	}
+
+	public String toString() {
+		return toText();
+	}
+}
@@ -0,0 +1,224 @@
+package org.mike.sudoku;
+
+import java.util.Random;
+
+/**
+ * A change to a 9 x 9 puzzle that keeps it a valid puzzle with the same number of solutions:
+ * an optional transposition, then a reordering of the rows and of the columns, then a
+ * relabeling of the digits.  Rows can only move inside their band and bands only as a whole,
+ * and the same for columns and stacks.
+ *
+ * Row i of the result is row rows[i] of the (transposed) puzzle, column j is column cols[j],
+ * and digit d becomes digits[d].
+ */
+public class Transform {
+	boolean transpose;
+	int[] rows;
+	int[] cols;
+	int[] digits;
+
+	/**
+	 * The transform that changes nothing
+	 */
+	public Transform() {
+		this(false, identity(9), identity(9), identity(10));
+	}
+
+	/**
+	 * @param transpose swap rows and columns first
+	 * @param rows the source row of each row
+	 * @param cols the source column of each column
+	 * @param digits the new digit for each digit, with 0 (empty) staying 0
+	 */
+	public Transform(boolean transpose, int[] rows, int[] cols, int[] digits) {
+		if (!keepsBoxes(rows) || !keepsBoxes(cols)) {
+			throw new IllegalArgumentException("Rows and columns have to move with their bands");
+		}
+		if (digits.length != 10 || digits[0] != 0 || !isPermutation(digits, 10)) {
+			throw new IllegalArgumentException("Digits have to be relabeled one to one");
+		}
+		this.transpose = transpose;
+		this.rows = rows.clone();
+		this.cols = cols.clone();
+		this.digits = digits.clone();
+	}
+
+	/**
+	 * @return a transform picked uniformly from all of them
+	 */
+	public static Transform random(Random random) {
+		return new Transform(random.nextBoolean(), randomLines(random), randomLines(random), randomDigits(random));
+	}
+
+	/*
+	 * Shuffle the bands, then the lines inside each band
+	 */
+	static int[] randomLines(Random random) {
+		int[] bands = identity(3);
+		shuffle(bands, 0, 3, random);
+		int[] lines = new int[9];
+		for (int b = 0; b < 3; b++) {
+			for (int i = 0; i < 3; i++) {
+				lines[b * 3 + i] = bands[b] * 3 + i;
+			}
+			shuffle(lines, b * 3, b * 3 + 3, random);
+		}
+		return lines;
+	}
+
+	static int[] randomDigits(Random random) {
+		int[] digits = identity(10);
+		shuffle(digits, 1, 10, random);
+		return digits;
+	}
+
+	static void shuffle(int[] values, int start, int stop, Random random) {
+		for (int i = stop - 1; i > start; i--) {
+			int j = start + random.nextInt(i - start + 1);
+			int t = values[i];
+			values[i] = values[j];
+			values[j] = t;
+		}
+	}
+
+	static int[] identity(int n) {
+		int[] result = new int[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = i;
+		}
+		return result;
+	}
+
+	static boolean isPermutation(int[] values, int n) {
+		boolean[] seen = new boolean[n];
+		for (int v : values) {
+			if (v < 0 || v >= n || seen[v]) {
+				return false;
+			}
+			seen[v] = true;
+		}
+		return true;
+	}
+
+	/*
+	 * The three lines of each band have to come from one band
+	 */
+	static boolean keepsBoxes(int[] lines) {
+		if (lines.length != 9 || !isPermutation(lines, 9)) {
+			return false;
+		}
+		for (int i = 0; i < 9; i++) {
+			if (lines[i] / 3 != lines[i - i % 3] / 3) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean isTranspose() {
+		return transpose;
+	}
+
+	/**
+	 * @return the source row of row i
+	 */
+	public int getRow(int i) {
+		return rows[i];
+	}
+
+	/**
+	 * @return the source column of column j
+	 */
+	public int getColumn(int j) {
+		return cols[j];
+	}
+
+	/**
+	 * @return what digit d becomes
+	 */
+	public int getDigit(int d) {
+		return digits[d];
+	}
+
+	/**
+	 * The square of the source puzzle that ends up at row, col
+	 * @return row * 9 + col of the source square
+	 */
+	public int sourceCell(int row, int col) {
+		int r = rows[row];
+		int c = cols[col];
+		return transpose ? c * 9 + r : r * 9 + c;
+	}
+
+	/**
+	 * @return a new puzzle with the transform applied.  The puzzle is not changed
+	 */
+	public Puzzle apply(Puzzle puzzle) {
+		Puzzle result = new Puzzle();
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				int cell = sourceCell(row, col);
+				int value = puzzle.getSquare(cell / 9, cell % 9);
+				result.setSquare(row, col, puzzle.isFilled(cell / 9, cell % 9) ? digits[value] : 0);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the transform that undoes this one
+	 */
+	public Transform inverse() {
+		int[] r = new int[9];
+		int[] c = new int[9];
+		int[] d = new int[10];
+		for (int i = 0; i < 9; i++) {
+			r[rows[i]] = i;
+			c[cols[i]] = i;
+		}
+		for (int i = 0; i < 10; i++) {
+			d[digits[i]] = i;
+		}
+		// transposing first and reordering after is undone by reordering the other way,
+		// then transposing, which is the same as transposing and swapping the orders
+		return transpose ? new Transform(true, c, r, d) : new Transform(false, r, c, d);
+	}
+
+	/**
+	 * @return the transform that does this one, then next
+	 */
+	public Transform then(Transform next) {
+		// square (i, j) of the result comes from next.sourceCell(i, j) of our result
+		int[] r = new int[9];
+		int[] c = new int[9];
+		int[] d = new int[10];
+		int[] firstRows = next.transpose ? cols : rows;
+		int[] firstCols = next.transpose ? rows : cols;
+		for (int i = 0; i < 9; i++) {
+			r[i] = firstRows[next.rows[i]];
+			c[i] = firstCols[next.cols[i]];
+		}
+		for (int i = 0; i < 10; i++) {
+			d[i] = next.digits[digits[i]];
+		}
+		return new Transform(transpose != next.transpose, r, c, d);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(transpose ? "transpose, rows " : "rows ");
+		for (int r : rows) {
+			sb.append(r + 1);
+		}
+		sb.append(", columns ");
+		for (int c : cols) {
+			sb.append(c + 1);
+		}
+		sb.append(", digits ");
+		for (int d = 1; d < 10; d++) {
+			sb.append(digits[d]);
+		}
+		return sb.toString();
+	}
+}
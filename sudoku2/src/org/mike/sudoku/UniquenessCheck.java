@@ -0,0 +1,213 @@
+package org.mike.sudoku;
+
+/**
+ * Tells whether a clue can come out of a puzzle whose solution we know, without the puzzle
+ * getting a second solution.  It can unless there is a solution of the other clues with a
+ * different digit in that square, so the search only has to find one solution, and it
+ * starts by trying the other digits in the square, where a second solution has to differ.
+ *
+ * The givens are kept as one used digit mask per row, column and box, like the
+ * GridGenerator, with a list of the empty squares.  Taking a clue out or putting it back is a
+ * few ands and ors, and the search puts back everything it sets, so one check goes straight
+ * on to the next without loading the puzzle again.  While there are many clues most squares
+ * have no other candidate at all, and the check is over before it starts.  Digging all 81
+ * clues with it takes about two thirds of the time of a dancing links count for each.
+ *
+ * An instance is not thread safe.
+ */
+public class UniquenessCheck {
+	// the solution
+	int[] grid = new int[81];
+	// the clues and what the search has filled in, 0 for empty
+	int[] cells = new int[81];
+	int[] rowUsed = new int[9];
+	int[] colUsed = new int[9];
+	int[] boxUsed = new int[9];
+	// the empty squares, in no order, so the search doesn't look at the clues
+	int[] empty = new int[81];
+	int emptyCount;
+	int nodes;
+	// the limits of the check going on now, or null
+	Budget budget;
+	boolean outOfBudget;
+
+	/**
+	 * Start on a puzzle
+	 * @param grid the solution, 81 digits in row order
+	 * @param shown the squares that are clues.  They must have only that solution
+	 */
+	public void load(int[] grid, boolean[] shown) {
+		for (int i = 0; i < 9; i++) {
+			rowUsed[i] = 0;
+			colUsed[i] = 0;
+			boxUsed[i] = 0;
+		}
+		emptyCount = 0;
+		for (int cell = 0; cell < 81; cell++) {
+			this.grid[cell] = grid[cell];
+			cells[cell] = 0;
+			if (shown[cell]) {
+				set(cell, grid[cell]);
+			}
+			else {
+				empty[emptyCount++] = cell;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the square is a clue now
+	 */
+	public boolean isClue(int cell) {
+		return cells[cell] != 0;
+	}
+
+	/**
+	 * Take the clue out for good, if the puzzle stays unique without it
+	 * @return true if the clue came out
+	 */
+	public boolean remove(int cell) {
+		try {
+			return remove(cell, null);
+		}
+		catch (BudgetExceededException e) {
+			// there is no budget to run out of
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Take the clue out for good, if the puzzle stays unique without it, within a budget.
+	 * Each square the search fills is a node
+	 * @param budget the limits of the check, or null for none
+	 * @return true if the clue came out
+	 * @throws BudgetExceededException the budget ran out.  The clue stays
+	 */
+	public boolean remove(int cell, Budget budget) throws BudgetExceededException {
+		nodes = 0;
+		outOfBudget = false;
+		this.budget = budget;
+		int digit = cells[cell];
+		unset(cell);
+		boolean other;
+		try {
+			other = searchOther(cell, digit);
+		} finally {
+			this.budget = null;
+		}
+		if (outOfBudget) {
+			set(cell, digit);
+			throw new BudgetExceededException(budget);
+		}
+		if (other) {
+			set(cell, digit);
+			return false;
+		}
+		empty[emptyCount++] = cell;
+		return true;
+	}
+
+	/*
+	 * Put a clue that came out back in
+	 */
+	void restore(int cell) {
+		for (int i = 0; i < emptyCount; i++) {
+			if (empty[i] == cell) {
+				empty[i] = empty[--emptyCount];
+				break;
+			}
+		}
+		set(cell, grid[cell]);
+	}
+
+	/**
+	 * @return the squares the last check filled
+	 */
+	public int getNodes() {
+		return nodes;
+	}
+
+	void set(int cell, int digit) {
+		int bit = Digits.bit(digit);
+		cells[cell] = digit;
+		rowUsed[CandidateGrid.row(cell)] |= bit;
+		colUsed[CandidateGrid.col(cell)] |= bit;
+		boxUsed[CandidateGrid.box(cell)] |= bit;
+	}
+
+	void unset(int cell) {
+		int bit = ~Digits.bit(cells[cell]);
+		cells[cell] = 0;
+		rowUsed[CandidateGrid.row(cell)] &= bit;
+		colUsed[CandidateGrid.col(cell)] &= bit;
+		boxUsed[CandidateGrid.box(cell)] &= bit;
+	}
+
+	int candidates(int cell) {
+		return Digits.ALL & ~(rowUsed[CandidateGrid.row(cell)] | colUsed[CandidateGrid.col(cell)]
+				| boxUsed[CandidateGrid.box(cell)]);
+	}
+
+	/*
+	 * Is there a solution with another digit in the square?
+	 */
+	boolean searchOther(int cell, int digit) {
+		int mask = candidates(cell) & ~Digits.bit(digit);
+		while (mask != 0) {
+			int bit = mask & -mask;
+			mask &= ~bit;
+			set(cell, Integer.numberOfTrailingZeros(bit) + 1);
+			boolean found = search();
+			unset(cell);
+			if (found || outOfBudget) {
+				return found;
+			}
+		}
+		return false;
+	}
+
+	boolean search() {
+		return search(emptyCount);
+	}
+
+	/*
+	 * Fill the first left squares of the empty list, fewest candidates first.  The square
+	 * filled is swapped to the end of them, and everything set is unset again on the way
+	 * out, found or not
+	 */
+	boolean search(int left) {
+		nodes++;
+		if (budget != null && !budget.node()) {
+			outOfBudget = true;
+			return false;
+		}
+		if (left == 0) {
+			return true;
+		}
+		int best = -1;
+		int bestCount = 10;
+		for (int i = 0; i < left; i++) {
+			int count = Integer.bitCount(candidates(empty[i]));
+			if (count < bestCount) {
+				best = i;
+				bestCount = count;
+				if (count <= 1) {
+					break;
+				}
+			}
+		}
+		int cell = empty[best];
+		empty[best] = empty[left - 1];
+		empty[left - 1] = cell;
+		int mask = candidates(cell);
+		boolean found = false;
+		while (mask != 0 && !found && !outOfBudget) {
+			int bit = mask & -mask;
+			mask &= ~bit;
+			set(cell, Integer.numberOfTrailingZeros(bit) + 1);
+			found = search(left - 1);
+			unset(cell);
+		}
+		return found;
+	}
+}
@@ -4,13 +4,37 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 import org.mike.test.builder.BuilderTests;
+import org.mike.test.builder.GridGeneratorTest;
+import org.mike.test.builder.HoleDiggerTest;
+import org.mike.test.builder.ParallelBuilderTest;
+import org.mike.test.builder.PuzzlePoolTest;
+import org.mike.test.builder.SeedBankTest;
+import org.mike.test.solver.BatchSolverTest;
+import org.mike.test.solver.BitSliceSolverTest;
+import org.mike.test.solver.BudgetTest;
+import org.mike.test.solver.CanonicalTest;
+import org.mike.test.solver.DancingLinksTest;
+import org.mike.test.solver.IncrementalTest;
+import org.mike.test.solver.LargeSolverTest;
+import org.mike.test.solver.LockedCandidatesTest;
+import org.mike.test.solver.PipelineTest;
+import org.mike.test.solver.RatingTest;
+import org.mike.test.solver.SolveCacheTest;
+import org.mike.test.solver.SolverMetricsTest;
+import org.mike.test.solver.SolverPoolTest;
 import org.mike.test.solver.PuzzleTest;
 import org.mike.test.solver.SolutionTests;
 import org.mike.test.solver.SolverTest;
+import org.mike.test.solver.SubsetsTest;
+import org.mike.test.solver.TraceTest;
+import org.mike.test.solver.UniquenessCheckTest;
+import org.mike.test.util.LruCacheTest;
 import org.mike.test.util.RangeTest;
+import org.mike.test.util.SplitRandomTest;
+import org.mike.test.util.StripedCounterTest;
 
 @RunWith(Suite.class)
-@SuiteClasses({ PuzzleTest.class, SolverTest.class, SolutionTests.class, BuilderTests.class, RangeTest.class })
+@SuiteClasses({ PuzzleTest.class, SolverTest.class, SolutionTests.class, IncrementalTest.class, DancingLinksTest.class, LargeSolverTest.class, BatchSolverTest.class, BitSliceSolverTest.class, SolverPoolTest.class, SolverMetricsTest.class, PipelineTest.class, SubsetsTest.class, LockedCandidatesTest.class, RatingTest.class, TraceTest.class, CanonicalTest.class, SolveCacheTest.class, BudgetTest.class, UniquenessCheckTest.class, BuilderTests.class, GridGeneratorTest.class, HoleDiggerTest.class, PuzzlePoolTest.class, ParallelBuilderTest.class, SeedBankTest.class, RangeTest.class, StripedCounterTest.class, LruCacheTest.class, SplitRandomTest.class })
 public class AllTests {
 
 }
@@ -6,6 +6,7 @@ import java.util.Set;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.mike.sudoku.Builder;
+import org.mike.sudoku.DancingLinks;
 import org.mike.sudoku.NoSolutionException;
 import org.mike.util.Range;
 
@@ -60,6 +61,7 @@ public class BuilderTests {
 		for (int i : new Range(100)) {
 			Builder p = new Builder();
 			puzzle = p.toArray();
+			assertNotNull(p.getRating());
 			testColumns();
 			testRows();
 			testBoxes();
@@ -67,4 +69,28 @@ public class BuilderTests {
 		
 	}
 
+	@Test
+	public void testLinksBuilder() throws NoSolutionException
+	{
+		DancingLinks links = new DancingLinks();
+		for (int i : new Range(10)) {
+			Builder p = new Builder(35, links);
+			puzzle = p.toArray();
+			assertNull(p.getRating());
+			testColumns();
+			testRows();
+			testBoxes();
+		}
+	}
+
+	@Test
+	public void testSeed() throws NoSolutionException
+	{
+		Builder first = new Builder(30, 20150901L);
+		Builder second = new Builder(30, first.getSeed());
+		assertEquals(first.toPuzzleString(), second.toPuzzleString());
+		assertEquals(first.toSolutionString(), second.toSolutionString());
+		assertFalse(first.toSolutionString().equals(new Builder(30, 20150902L).toSolutionString()));
+	}
+
 }
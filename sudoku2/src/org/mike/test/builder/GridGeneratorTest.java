@@ -0,0 +1,53 @@
+package org.mike.test.builder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.mike.sudoku.GridGenerator;
+import org.mike.sudoku.Puzzle;
+
+public class GridGeneratorTest {
+
+	void checkGrid(int[] grid) {
+		for (int i = 0; i < 9; i++) {
+			int row = 0;
+			int col = 0;
+			int box = 0;
+			for (int j = 0; j < 9; j++) {
+				row |= 1 << grid[i * 9 + j];
+				col |= 1 << grid[j * 9 + i];
+				box |= 1 << grid[((i / 3) * 3 + j / 3) * 9 + (i % 3) * 3 + j % 3];
+			}
+			assertEquals(0x3fe, row);
+			assertEquals(0x3fe, col);
+			assertEquals(0x3fe, box);
+		}
+	}
+
+	@Test
+	public void testValidGrids() {
+		GridGenerator generator = new GridGenerator();
+		for (int i = 0; i < 500; i++) {
+			checkGrid(generator.generate());
+		}
+	}
+
+	@Test
+	public void testSameSeedSameGrid() {
+		int[] first = new GridGenerator(new Random(42)).generate();
+		assertArrayEquals(first, new GridGenerator(new Random(42)).generate());
+		assertFalse(Arrays.equals(first, new GridGenerator(new Random(43)).generate()));
+	}
+
+	@Test
+	public void testPuzzle() {
+		Puzzle puzzle = new GridGenerator().generatePuzzle();
+		assertTrue(puzzle.isSolved());
+	}
+}
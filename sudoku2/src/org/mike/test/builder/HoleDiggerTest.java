@@ -0,0 +1,120 @@
+package org.mike.test.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mike.sudoku.Builder;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.GridGenerator;
+import org.mike.sudoku.HoleDigger;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+import org.mike.util.SplitRandom;
+
+public class HoleDiggerTest {
+
+	Puzzle clues(int[] grid, boolean[] shown) {
+		Puzzle puzzle = new Puzzle();
+		for (int cell = 0; cell < 81; cell++) {
+			puzzle.setSquare(cell / 9, cell % 9, shown[cell] ? grid[cell] : 0);
+		}
+		return puzzle;
+	}
+
+	int count(boolean[] shown) {
+		int count = 0;
+		for (boolean b : shown) {
+			if (b) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testUnique() throws Exception {
+		SplitRandom random = new SplitRandom(7);
+		GridGenerator generator = new GridGenerator(random);
+		DancingLinks links = new DancingLinks();
+		HoleDigger digger = new HoleDigger(links, random);
+		digger.setMinClues(24);
+		for (int i = 0; i < 50; i++) {
+			int[] grid = generator.generate();
+			boolean[] shown = digger.dig(grid);
+			assertTrue(count(shown) >= 24);
+			assertTrue(links.isUnique(clues(grid, shown)));
+			// one solve per clue taken out or put back
+			assertEquals(81 - count(shown) + digger.getRestored(), digger.getSolves());
+			assertTrue(digger.getSolves() <= 81);
+		}
+	}
+
+	@Test
+	public void testSymmetric() throws Exception {
+		SplitRandom random = new SplitRandom(11);
+		GridGenerator generator = new GridGenerator(random);
+		DancingLinks links = new DancingLinks();
+		HoleDigger digger = new HoleDigger(links, random);
+		digger.setSymmetric(true);
+		digger.setMinClues(20);
+		for (int i = 0; i < 50; i++) {
+			int[] grid = generator.generate();
+			boolean[] shown = digger.dig(grid);
+			for (int cell = 0; cell < 81; cell++) {
+				assertEquals(shown[cell], shown[80 - cell]);
+			}
+			assertTrue(count(shown) >= 20);
+			assertTrue(digger.getSolves() <= 41);
+			assertTrue(links.isUnique(clues(grid, shown)));
+		}
+	}
+
+	@Test
+	public void testMaxLevel() throws Exception {
+		SplitRandom random = new SplitRandom(13);
+		GridGenerator generator = new GridGenerator(random);
+		Solver solver = new Solver();
+		HoleDigger digger = new HoleDigger(solver, random);
+		digger.setMaxLevel("easy");
+		for (int i = 0; i < 20; i++) {
+			int[] grid = generator.generate();
+			Puzzle puzzle = clues(grid, digger.dig(grid));
+			solver.solve(puzzle);
+			assertEquals("easy", solver.getRating().getLevel());
+			for (int cell = 0; cell < 81; cell++) {
+				assertEquals(grid[cell], puzzle.getSquare(cell / 9, cell % 9));
+			}
+		}
+	}
+
+	@Test
+	public void testMinimal() throws Exception {
+		DancingLinks links = new DancingLinks();
+		for (long seed = 0; seed < 20; seed++) {
+			Builder builder = new Builder(Builder.MINIMAL, links, null, seed);
+			String puzzle = builder.toPuzzleString();
+			Puzzle clues = new Puzzle();
+			for (int cell = 0; cell < 81; cell++) {
+				char c = puzzle.charAt(cell);
+				clues.setSquare(cell / 9, cell % 9, c == ' ' ? 0 : c - '0');
+			}
+			assertTrue(links.isUnique(clues));
+			// every clue is needed
+			for (int cell = 0; cell < 81; cell++) {
+				int digit = clues.getSquare(cell / 9, cell % 9);
+				if (digit != 0) {
+					clues.setSquare(cell / 9, cell % 9, 0);
+					assertFalse(links.isUnique(clues));
+					clues.setSquare(cell / 9, cell % 9, digit);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadLevel() {
+		new HoleDigger(new DancingLinks(), new SplitRandom(1)).setMaxLevel("fiendish");
+	}
+}
@@ -0,0 +1,61 @@
+package org.mike.test.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.mike.sudoku.Builder;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.ParallelBuilder;
+
+public class ParallelBuilderTest {
+
+	@Test
+	public void testBuild() throws Exception {
+		ParallelBuilder parallel = new ParallelBuilder(3, Executors.defaultThreadFactory());
+		try {
+			for (int i = 0; i < 10; i++) {
+				Builder builder = parallel.build(30, 0);
+				assertNotNull(builder.getRating());
+				// the winner's seed builds it again
+				Builder again = new Builder(30, builder.getSeed());
+				assertEquals(builder.toPuzzleString(), again.toPuzzleString());
+			}
+		} finally {
+			parallel.shutdown();
+		}
+	}
+
+	@Test
+	public void testLinks() throws Exception {
+		ParallelBuilder parallel = new ParallelBuilder(2, Executors.defaultThreadFactory());
+		try {
+			Future<Builder> future = parallel.submit(35, true, 0);
+			Builder builder = future.get();
+			assertNull(builder.getRating());
+			Builder again = new Builder(35, new DancingLinks(), null, builder.getSeed());
+			assertEquals(builder.toPuzzleString(), again.toPuzzleString());
+		} finally {
+			parallel.shutdown();
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		ParallelBuilder parallel = new ParallelBuilder(2, Executors.defaultThreadFactory());
+		try {
+			Future<Builder> future = parallel.submit(30, 0);
+			future.cancel(true);
+			assertTrue(future.isCancelled());
+			// the workers are free again for the next race
+			assertNotNull(parallel.build(30, 0));
+		} finally {
+			parallel.shutdown();
+		}
+	}
+}
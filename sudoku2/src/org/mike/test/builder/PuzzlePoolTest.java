@@ -0,0 +1,108 @@
+package org.mike.test.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.Test;
+import org.mike.sudoku.Builder;
+import org.mike.sudoku.PuzzlePool;
+
+public class PuzzlePoolTest {
+
+	void waitForSize(PuzzlePool pool, int level, int size) throws InterruptedException {
+		for (int i = 0; i < 500 && pool.size(level) < size; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(size, pool.size(level));
+	}
+
+	@Test
+	public void testFill() throws InterruptedException {
+		PuzzlePool pool = new PuzzlePool(4, 2, 2, Executors.defaultThreadFactory(), 35, 30);
+		try {
+			// the first take finds nothing, and starts the worker
+			assertNull(pool.take(35));
+			assertEquals(1, pool.getMisses());
+			waitForSize(pool, 35, 4);
+			assertEquals(0, pool.size(30));
+
+			Builder builder = pool.take(35);
+			assertNotNull(builder);
+			assertEquals(1, pool.getHits());
+			// still above the low water mark, so nothing is built
+			assertEquals(3, pool.size(35));
+			Thread.sleep(50);
+			assertEquals(3, pool.size(35));
+
+			pool.take(35);
+			pool.take(35);
+			waitForSize(pool, 35, 4);
+			assertEquals(0, pool.getFailures());
+			assertTrue(pool.getBuilt() >= 6);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testFillAll() throws InterruptedException {
+		PuzzlePool pool = new PuzzlePool(3, 1, 1, Executors.defaultThreadFactory(), 35, 25);
+		try {
+			pool.fill();
+			waitForSize(pool, 35, 3);
+			waitForSize(pool, 25, 3);
+			assertNotNull(pool.take(25));
+			// not a level of the pool
+			assertNull(pool.take(50));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoThreads() {
+		// a platform that won't start threads leaves the pool empty, but takes still work, and
+		// each worker that couldn't start is a failure
+		PuzzlePool pool = new PuzzlePool(4, 2, 1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				return null;
+			}
+		}, 35);
+		assertNull(pool.take(35));
+		assertNull(pool.take(35));
+		assertEquals(0, pool.size(35));
+		assertEquals(2, pool.getFailures());
+		pool.shutdown();
+
+		pool = new PuzzlePool(4, 2, 1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				throw new SecurityException("No threads here");
+			}
+		}, 35);
+		assertNull(pool.take(35));
+		assertEquals(1, pool.getFailures());
+		pool.shutdown();
+	}
+
+	@Test
+	public void testFillFor() {
+		// no workers at all, so only fillFor fills it
+		PuzzlePool pool = new PuzzlePool(3, 2, 1, null, 35, 30);
+		assertNull(pool.take(35));
+		assertEquals(0, pool.getFailures());
+		assertEquals(6, pool.fillFor(60000));
+		assertEquals(3, pool.size(35));
+		assertEquals(3, pool.size(30));
+		assertNotNull(pool.take(30));
+		// the emptiest level first, and nothing once it is full again
+		assertEquals(1, pool.fillFor(60000));
+		assertEquals(0, pool.fillFor(60000));
+		assertEquals(7, pool.getBuilt());
+		pool.shutdown();
+	}
+}
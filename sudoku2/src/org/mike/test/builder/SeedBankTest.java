@@ -0,0 +1,95 @@
+package org.mike.test.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mike.sudoku.Builder;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.SeedBank;
+import org.mike.sudoku.Solver;
+import org.mike.util.SplitRandom;
+
+public class SeedBankTest {
+
+	Puzzle clues(Builder builder) {
+		Puzzle puzzle = new Puzzle();
+		String s = builder.toPuzzleString();
+		for (int cell = 0; cell < 81; cell++) {
+			char c = s.charAt(cell);
+			puzzle.setSquare(cell / 9, cell % 9, c == ' ' ? 0 : c - '0');
+		}
+		return puzzle;
+	}
+
+	@Test
+	public void testTransform() throws Exception {
+		SplitRandom random = new SplitRandom(3);
+		Builder builder = new Builder(30, 3L);
+		Solver solver = new Solver();
+		DancingLinks links = new DancingLinks();
+		for (int i = 0; i < 20; i++) {
+			Builder copy = builder.transform(random.nextLong());
+			Puzzle puzzle = clues(copy);
+			assertTrue(links.isUnique(puzzle));
+			solver.solve(puzzle);
+			assertEquals(copy.toSolutionString(), puzzle.toString());
+			assertEquals(builder.getRating().getLevel(), solver.getRating().getLevel());
+			assertEquals(builder.getRating().toString(), copy.getRating().toString());
+			assertEquals(30, copy.getShowRatio());
+		}
+	}
+
+	@Test
+	public void testBank() throws Exception {
+		SplitRandom random = new SplitRandom(5);
+		SeedBank bank = new SeedBank(2, random);
+		assertNull(bank.next(35, random));
+		Builder seed = new Builder(35, 5L);
+		bank.add(seed);
+		assertEquals(1, bank.size(35));
+		assertEquals(0, bank.size(30));
+		Builder copy = bank.next(35, random);
+		assertEquals(seed.toPuzzleString().replace(" ", "").length(), copy.toPuzzleString().replace(" ", "").length());
+		assertFalse(seed.toSolutionString().equals(copy.toSolutionString()));
+
+		// the seed and the shuffle build the copy again, and a copy of it is a copy of the seed
+		assertTrue(copy.isCopy());
+		assertFalse(seed.isCopy());
+		Builder again = new Builder(35, copy.getSeed()).transform(copy.getShuffle());
+		assertEquals(copy.toPuzzleString(), again.toPuzzleString());
+		assertEquals(copy.toSolutionString(), again.toSolutionString());
+		Builder twice = copy.transform(11L);
+		assertEquals(seed.transform(11L).toPuzzleString(), twice.toPuzzleString());
+		assertEquals(11L, twice.getShuffle());
+
+		// full levels replace a seed instead of growing
+		for (long i = 0; i < 5; i++) {
+			bank.add(new Builder(35, i));
+		}
+		assertEquals(2, bank.size(35));
+	}
+
+	@Test
+	public void testSeed() throws Exception {
+		SplitRandom random = new SplitRandom(7);
+		SeedBank bank = new SeedBank(5, random);
+		assertEquals(4, bank.seed(new int[] { 35, 25 }, 2, 3));
+		assertEquals(2, bank.size(35));
+		assertEquals(2, bank.size(25));
+		assertEquals(0, bank.size(30));
+		assertEquals(25, bank.next(25, random).getShowRatio());
+
+		// seedLevels only fills the levels of the pages that have nothing yet
+		assertEquals(4, bank.seedLevels());
+		assertEquals(0, bank.seedLevels());
+		for (int level : new int[] { 35, 30, 25 }) {
+			assertEquals(level == 30 ? 4 : 2, bank.size(level));
+			assertNotNull(bank.next(level, random));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mike.sudoku.BatchSolver;
+import org.mike.sudoku.BatchSolver.Result;
+import org.mike.sudoku.BatchSolver.Status;
+import org.mike.sudoku.Puzzle;
+import org.mike.util.Range;
+
+public class BatchSolverTest {
+
+	String solvable = "       7 1 5   6 9247  8   5   1 7   8  7  6   2 4   3   4  8373 9   5 2 2       ";
+	String stuck = "  6  981     8      26    3   9   324       925   1  657   49      2      8      ";
+	String invalid = "11";
+
+	@Test
+	public void testBatch() throws IOException {
+		String[] boards = { solvable, stuck, invalid };
+		List<Puzzle> puzzles = new ArrayList<Puzzle>();
+		for (int i : new Range(100)) {
+			puzzles.add(read(boards[i % 3]));
+		}
+
+		BatchSolver batch = new BatchSolver();
+		List<Result> results = batch.solveAll(puzzles);
+		batch.shutdown();
+
+		assertEquals(puzzles.size(), results.size());
+		Status[] expected = { Status.SOLVED, Status.STUCK, Status.INVALID };
+		for (int i : new Range(100)) {
+			Result result = results.get(i);
+			assertEquals(expected[i % 3], result.getStatus());
+			assertTrue(result.getPuzzle() == puzzles.get(i));
+		}
+		assertTrue(results.get(0).getPuzzle().isSolved());
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mike.sudoku.BatchSolver;
+import org.mike.sudoku.BatchSolver.Result;
+import org.mike.sudoku.BatchSolver.Status;
+import org.mike.sudoku.BitSliceSolver;
+import org.mike.sudoku.Puzzle;
+import org.mike.util.Range;
+
+public class BitSliceSolverTest {
+
+	String[] boards = {
+			// singles
+			"       7 1 5   6 9247  8   5   1 7   8  7  6   2 4   3   4  8373 9   5 2 2       ",
+			" 8 36 2  9    26751 6 9 3   5      3    53 1  6 4     5   49 3    53 48   41    7",
+			// locked candidates, then singles
+			" 9 5   26  4 981 3   3 2   5124  9    6   5329      1    94   1   725  9 6     4 ",
+			// stuck
+			"  6  981     8      26    3   9   324       925   1  657   49      2      8      ",
+			"",
+			// invalid
+			"11",
+			"1        1",
+			"123456780        9" };
+
+	@Test
+	public void testSameAsScalar() throws IOException {
+		// more than two sets of lanes, and a partial one
+		List<Puzzle> puzzles = new ArrayList<Puzzle>();
+		for (int i : new Range(150)) {
+			puzzles.add(read(boards[i % boards.length]));
+		}
+		List<Result> results = new BitSliceSolver().solveAll(puzzles);
+
+		assertEquals(puzzles.size(), results.size());
+		for (int i : new Range(150)) {
+			Puzzle expected = read(boards[i % boards.length]);
+			Status status = BatchSolver.solveOne(expected).getStatus();
+			assertEquals(boards[i % boards.length], status, results.get(i).getStatus());
+			assertEquals(expected.toString(), puzzles.get(i).toString());
+		}
+	}
+
+	@Test
+	public void testStatus() throws IOException {
+		List<Puzzle> puzzles = new ArrayList<Puzzle>();
+		for (String board : boards) {
+			puzzles.add(read(board));
+		}
+		List<Result> results = new BitSliceSolver().solveAll(puzzles);
+		Status[] expected = { Status.SOLVED, Status.SOLVED, Status.SOLVED, Status.STUCK, Status.STUCK,
+				Status.INVALID, Status.INVALID, Status.INVALID };
+		for (int i : new Range(boards.length)) {
+			assertEquals(boards[i], expected[i], results.get(i).getStatus());
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package org.mike.test.solver;
+
+import java.io.IOException;
+
+import org.mike.sudoku.Puzzle;
+
+/**
+ * Puzzles for the tests, from boards written as 81 characters in row order with a blank for
+ * an empty square
+ */
+public class Boards {
+
+	public static Puzzle read(String board) throws IOException {
+		Puzzle puzzle = new Puzzle();
+		puzzle.readBoard(board);
+		return puzzle;
+	}
+
+	/**
+	 * @return the number of squares filled in
+	 */
+	public static int filled(Puzzle puzzle) {
+		int n = 0;
+		for (int row = 0; row < puzzle.getSize(); row++) {
+			for (int col = 0; col < puzzle.getSize(); col++) {
+				if (puzzle.isFilled(row, col)) {
+					n++;
+				}
+			}
+		}
+		return n;
+	}
+}
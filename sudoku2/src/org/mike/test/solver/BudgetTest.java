@@ -0,0 +1,135 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mike.test.solver.Boards.filled;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.Budget;
+import org.mike.sudoku.BudgetExceededException;
+import org.mike.sudoku.Builder;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.LargeSolver;
+import org.mike.sudoku.NoSolutionException;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+
+public class BudgetTest {
+
+	String pair = "1  7   5  5     182 9  3  6891 275  6 2  4 8        9   58  1  7  2    53    5829";
+
+	@Test
+	public void testNodeLimit() throws BudgetExceededException {
+		DancingLinks links = new DancingLinks();
+		try {
+			// the empty board has billions of solutions
+			links.countSolutions(new Puzzle(), 1000000, new Budget(0, 100, 0));
+			fail("the search should run out of nodes");
+		}
+		catch (BudgetExceededException e) {
+			assertEquals("node limit", e.getExceeded());
+		}
+		// the links are put back, so the engine still works
+		assertEquals(1000, links.countSolutions(new Puzzle(), 1000, new Budget()));
+		assertEquals(1000, links.countSolutions(new Puzzle(), 1000));
+	}
+
+	@Test
+	public void testLargeSolverNodeLimit() {
+		LargeSolver solver = new LargeSolver();
+		try {
+			solver.countSolutions(new Puzzle(4), 1000000, new Budget(0, 50, 0));
+			fail("the search should run out of nodes");
+		}
+		catch (BudgetExceededException e) {
+			assertEquals("node limit", e.getExceeded());
+		}
+		assertEquals(10, solver.countSolutions(new Puzzle(4), 10));
+	}
+
+	@Test
+	public void testStepLimitKeepsProgress() throws IOException, CantSolveException {
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		Puzzle puzzle = read(pair);
+		int givens = filled(puzzle);
+		try {
+			solver.solve(puzzle, new Budget(0, 0, 3));
+			fail("three steps can't solve this");
+		}
+		catch (BudgetExceededException e) {
+			assertEquals("step limit", e.getExceeded());
+			assertTrue(e instanceof CantSolveException);
+		}
+		assertTrue(filled(puzzle) > givens);
+		assertFalse(puzzle.isSolved());
+
+		// the budget only lasts for its solve
+		solver.solve(puzzle);
+		assertTrue(puzzle.isSolved());
+	}
+
+	@Test
+	public void testStepLimitStepping() throws IOException {
+		Solver solver = new Solver();
+		Puzzle puzzle = read(pair);
+		try {
+			solver.solve(puzzle, new Budget(0, 0, 3));
+			fail("three steps can't solve this");
+		}
+		catch (CantSolveException e) {
+			assertTrue(e instanceof BudgetExceededException);
+		}
+	}
+
+	@Test
+	public void testDeadlineAndCancel() throws InterruptedException {
+		Budget budget = Budget.millis(1);
+		Thread.sleep(5);
+		assertTrue(budget.isExceeded());
+		assertEquals("deadline", budget.getExceeded());
+
+		budget = new Budget();
+		assertFalse(budget.isExceeded());
+		assertNull(budget.getExceeded());
+		assertEquals(Long.MAX_VALUE, budget.getRemainingMillis());
+		budget.cancel();
+		assertTrue(budget.isExceeded());
+		assertEquals("cancelled", budget.getExceeded());
+	}
+
+	@Test
+	public void testInterrupt() {
+		Thread.currentThread().interrupt();
+		try {
+			new DancingLinks().countSolutions(new Puzzle(), 1000000, new Budget());
+			fail("an interrupt should stop the search");
+		}
+		catch (BudgetExceededException e) {
+			assertEquals("interrupted", e.getExceeded());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	public void testBuilder() throws NoSolutionException {
+		Budget budget = new Budget();
+		budget.cancel();
+		try {
+			new Builder(35, null, budget);
+			fail("a cancelled budget can't build");
+		}
+		catch (BudgetExceededException e) {
+			assertEquals("cancelled", e.getExceeded());
+		}
+		assertTrue(new Builder(35, null, Budget.millis(60000)).getRating() != null);
+	}
+}
@@ -0,0 +1,85 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+import org.mike.sudoku.Canonical;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Transform;
+
+public class CanonicalTest {
+
+	String locked = " 9 5   26  4 981 3   3 2   5124  9    6   5329      1    94   1   725  9 6     4 ";
+	String pair = "1  7   5  5     182 9  3  6891 275  6 2  4 8        9   58  1  7  2    53    5829";
+	String solved = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+	String squares(Puzzle puzzle) {
+		StringBuilder sb = new StringBuilder();
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				sb.append(puzzle.isFilled(row, col) ? puzzle.getSquare(row, col) : 0);
+			}
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testSameForTransforms() throws IOException {
+		Random random = new Random(16);
+		for (String board : new String[] { locked, pair, solved }) {
+			Puzzle puzzle = read(board);
+			String key = Canonical.key(puzzle);
+			for (int i = 0; i < 20; i++) {
+				assertEquals(key, Canonical.key(Transform.random(random).apply(puzzle)));
+			}
+		}
+		assertFalse(Canonical.key(read(locked)).equals(Canonical.key(read(pair))));
+	}
+
+	@Test
+	public void testTransformGivesKey() throws IOException {
+		Canonical canonical = new Canonical();
+		Puzzle puzzle = read(pair);
+		Transform transform = canonical.transform(puzzle);
+		assertEquals(canonical.toKey(), squares(transform.apply(puzzle)));
+		// the canonical form is its own canonical form
+		assertEquals(canonical.toKey(), Canonical.key(transform.apply(puzzle)));
+	}
+
+	@Test
+	public void testSmallest() throws IOException {
+		String empty = "000000000000000000000000000000000000000000000000000000000000000000000000000000000";
+		assertEquals(empty, Canonical.key(new Puzzle()));
+		Puzzle one = new Puzzle();
+		one.setSquare(4, 4, 7);
+		assertEquals(empty.substring(1) + "1", Canonical.key(one));
+		assertTrue(Canonical.key(read(solved)).startsWith("123456789"));
+		assertTrue(Canonical.key(read(locked)).startsWith("000000"));
+	}
+
+	@Test
+	public void testInverse() throws IOException {
+		Random random = new Random(3);
+		Puzzle puzzle = read(locked);
+		for (int i = 0; i < 20; i++) {
+			Transform a = Transform.random(random);
+			Transform b = Transform.random(random);
+			assertEquals(squares(puzzle), squares(a.inverse().apply(a.apply(puzzle))));
+			assertEquals(squares(b.apply(a.apply(puzzle))), squares(a.then(b).apply(puzzle)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBandsStayTogether() {
+		int[] rows = { 0, 1, 3, 2, 4, 5, 6, 7, 8 };
+		int[] cols = { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+		int[] digits = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+		new Transform(false, rows, cols, digits);
+	}
+}
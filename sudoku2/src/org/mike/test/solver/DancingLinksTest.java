@@ -0,0 +1,89 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.Puzzle;
+import org.mike.util.Range;
+
+public class DancingLinksTest {
+
+	DancingLinks links = new DancingLinks();
+
+	void checkSolution(String board, Puzzle puzzle) {
+		assertTrue(puzzle.isSolved());
+		for (int i : new Range(9)) {
+			int rows = 0;
+			int cols = 0;
+			int boxes = 0;
+			for (int j : new Range(9)) {
+				rows |= 1 << puzzle.getSquare(i, j);
+				cols |= 1 << puzzle.getSquare(j, i);
+				boxes |= 1 << puzzle.getSquare((i / 3) * 3 + j / 3, (i % 3) * 3 + j % 3);
+			}
+			assertEquals(0x3fe, rows);
+			assertEquals(0x3fe, cols);
+			assertEquals(0x3fe, boxes);
+		}
+		for (int k : new Range(81)) {
+			if (board.charAt(k) != ' ') {
+				assertEquals(board.charAt(k), puzzle.toString().charAt(k));
+			}
+		}
+	}
+
+	@Test
+	public void testHardPuzzles() throws IOException, CantSolveException {
+		// the puzzles the logic solver gets stuck on
+		String[] boards = {
+				" 3 7 5 8 15  9  2 4         6   8  3 9 6 7 5 5  3   7         8 4  8  39   1 2 4 ",
+				"  6  981     8      26    3   9   324       925   1  657   49      2      8      ",
+				"     5     7 8 3  9      2 6  29   8        37 8 31  9 1   3  4  5 7 1    65     " };
+		for (String board : boards) {
+			Puzzle puzzle = read(board);
+			links.solve(puzzle);
+			checkSolution(board, puzzle);
+		}
+	}
+
+	@Test
+	public void testCount() throws IOException {
+		assertEquals(10, links.countSolutions(new Puzzle(), 10));
+		assertEquals(0, links.countSolutions(read("11"), 10));
+		// the links are restored after a failed solve
+		assertEquals(1, links.countSolutions(read("  6  981     8      26    3   9   324       925   1  657   49      2      8      "), 10));
+	}
+
+	@Test
+	public void testUnique() throws IOException {
+		String b = "  6  981     8      26    3   9   324       925   1  657   49      2      8      ";
+		assertTrue(links.isUnique(read(b)));
+		// drop the first given
+		assertFalse(links.isUnique(read("     981     8      26    3   9   324       925   1  657   49      2      8      ")));
+		assertFalse(links.isUnique(read("11")));
+	}
+
+	@Test
+	public void testNotUnique() throws IOException {
+		try {
+			links.solve(read("123"));
+			fail("Lots of solutions");
+		} catch (CantSolveException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOnlyNineByNine() {
+		// a 16 x 16 puzzle would be read through its top left corner
+		new DancingLinks().countSolutions(new Puzzle(4), 2);
+	}
+}
@@ -8,6 +8,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mike.sudoku.Puzzle;
 import org.mike.sudoku.Solver;
+import org.mike.sudoku.Trace;
 
 public class FullPuzzles {
 
@@ -23,11 +24,12 @@ public class FullPuzzles {
 			fail(e.getMessage());
 		}
 		Solver solver = new Solver(puzzle);
+		solver.setTrace(new Trace());
 		while (true) {
 			solver.step();
 			if (!solver.madeProgress()) {
 				puzzle.printBoard();
-				solver.printSolverInfo();
+				System.out.print(solver.getTrace().toText());
 				return false;
 			}
 			solver.fillAnswers();
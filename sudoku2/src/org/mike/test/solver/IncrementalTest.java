@@ -0,0 +1,60 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mike.test.solver.Boards.filled;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+
+public class IncrementalTest {
+
+	String solve(String board, boolean incremental) throws IOException, CantSolveException {
+		Solver solver = new Solver(board);
+		solver.setIncremental(incremental);
+		solver.solve();
+		return solver.toString();
+	}
+
+	@Test
+	public void testSameAsSteps() throws IOException, CantSolveException {
+		String b3 = "       7 1 5   6 9247  8   5   1 7   8  7  6   2 4   3   4  8373 9   5 2 2       ";
+		String b5 = " 392 17    7      8   6 4   1 85  4  9     5  2  39 6   2 1   4      8    43 862 ";
+		assertEquals(solve(b3, false), solve(b3, true));
+		assertEquals(solve(b5, false), solve(b5, true));
+	}
+
+	@Test
+	public void testStuck() throws IOException {
+		String b = "  6  981     8      26    3   9   324       925   1  657   49      2      8      ";
+		Puzzle puzzle = read(b);
+		Solver solver = new Solver(puzzle);
+		solver.setIncremental(true);
+		try {
+			solver.solve();
+			fail("Should be stuck");
+		} catch (CantSolveException e) {
+			// the squares we did find are kept
+			assertTrue(filled(puzzle) > filled(read(b)));
+		}
+	}
+
+	@Test
+	public void testContradiction() throws IOException {
+		Solver solver = new Solver("11");
+		solver.setIncremental(true);
+		try {
+			solver.solve();
+			fail("Two ones in a row");
+		} catch (CantSolveException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.InvalidPuzzleException;
+import org.mike.sudoku.LargeSolver;
+import org.mike.sudoku.Puzzle;
+
+public class LargeSolverTest {
+
+	// one row of 16 or 25 per line
+	String board16 = " 6  4978F5 3A   " +
+			" 34 1  B9CDE 8  " +
+			"789   FG 24 3 B " +
+			"CE G 3 D78AB 469" +
+			"1  3 B 5 E89FG  " +
+			"E G 7    D AC   " +
+			"57 9 GCF   1    " +
+			"6   829 3G7 51 E" +
+			" 92    1D C  F  " +
+			" 1    69      C " +
+			"D 6 G      4    " +
+			"    5F C     A97" +
+			"     C 2  5D 7  " +
+			"  7  8G364  B   " +
+			" B    E7G3     5" +
+			"   69   A7B8 C  ";
+	String board25 = "E 3 I6 L8H 7MNJ C GBOK5 9" +
+			"2 567GI KO  C F 389D L   " +
+			"8  BC12   4 DKLHJ  P7EF I" +
+			"D G J7  BN1 5 PEIKL  4   " +
+			"KLMN CDEFP8 G  24  71 A J" +
+			"1  D3 M  5NO 7  G  C    A" +
+			"MJ    C G8  3   E4  6F9 D" +
+			" A87 K  E4  65D 9J3FLO P " +
+			"HKLI O3   F 2P 8D15 BC 4 " +
+			"9 E G 7I DB 4 A  L2K38 5 " +
+			" 1 C   8 6OI 47 AE     M5" +
+			"  BL  P 7  K8 25 D 1FG 6E" +
+			"OH  P3K  E5   N6   2  JA1" +
+			" 56G8DH OFL J   NIK  B 92" +
+			" E 9K    LD HF BPOM4 78C3" +
+			"4 J 1 EP 2M  6BN57H D9   " +
+			" ND26 F 9 7AO8 K1CPEM  L4" +
+			" 7H39 ONAC DK15J2B   6IF " +
+			" M  E4LKH 9 I  O 6 A8P7JN" +
+			"GO K  8  7EJNC43 9IL  2HB" +
+			"  IJLE6DPGC 1       9N   " +
+			" C1O2  7  HN LM B  I J 3K" +
+			"7 98  A 1K P  3  2 O5 D  " +
+			"  KMA JCL3I47 O98 E5G2H16" +
+			"PGN  2 OMI6  D       A 78";
+
+	LargeSolver solver = new LargeSolver();
+
+	Puzzle read(int order, String board) throws IOException {
+		Puzzle puzzle = new Puzzle(order);
+		puzzle.readBoard(board);
+		return puzzle;
+	}
+
+	void checkSolution(String board, Puzzle puzzle) {
+		int size = puzzle.getSize();
+		int order = puzzle.getOrder();
+		assertTrue(puzzle.isSolved());
+		for (int i = 0; i < size; i++) {
+			long rows = 0;
+			long cols = 0;
+			long boxes = 0;
+			for (int j = 0; j < size; j++) {
+				rows |= 1L << puzzle.getSquare(i, j);
+				cols |= 1L << puzzle.getSquare(j, i);
+				boxes |= 1L << puzzle.getSquare((i / order) * order + j / order, (i % order) * order + j % order);
+			}
+			long all = (1L << (size + 1)) - 2;
+			assertEquals(all, rows);
+			assertEquals(all, cols);
+			assertEquals(all, boxes);
+		}
+		for (int k = 0; k < board.length(); k++) {
+			if (board.charAt(k) != ' ') {
+				assertEquals(board.charAt(k), puzzle.toString().charAt(k));
+			}
+		}
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		Puzzle puzzle = read(4, board16);
+		assertEquals(16, puzzle.getSize());
+		assertEquals(board16, puzzle.toString());
+		assertEquals(board25, read(5, board25).toString());
+	}
+
+	@Test
+	public void testSmall() throws IOException, CantSolveException {
+		// the puzzles the logic solver gets stuck on, checked against dancing links
+		String[] boards = {
+				" 3 7 5 8 15  9  2 4         6   8  3 9 6 7 5 5  3   7         8 4  8  39   1 2 4 ",
+				"  6  981     8      26    3   9   324       925   1  657   49      2      8      ",
+				"     5     7 8 3  9      2 6  29   8        37 8 31  9 1   3  4  5 7 1    65     " };
+		DancingLinks links = new DancingLinks();
+		for (String board : boards) {
+			Puzzle puzzle = read(3, board);
+			solver.solve(puzzle);
+			checkSolution(board, puzzle);
+			Puzzle expected = read(3, board);
+			links.solve(expected);
+			assertEquals(expected.toString(), puzzle.toString());
+		}
+	}
+
+	@Test
+	public void testLarge() throws IOException, CantSolveException {
+		Puzzle puzzle = read(4, board16);
+		solver.solve(puzzle);
+		checkSolution(board16, puzzle);
+		puzzle = read(5, board25);
+		solver.solve(puzzle);
+		checkSolution(board25, puzzle);
+		// and back to a smaller order with the same solver
+		puzzle = read(4, board16);
+		solver.solve(puzzle);
+		checkSolution(board16, puzzle);
+	}
+
+	@Test
+	public void testCount() throws IOException {
+		assertEquals(10, solver.countSolutions(new Puzzle(4), 10));
+		assertEquals(0, solver.countSolutions(read(4, "AA"), 10));
+		assertTrue(solver.isUnique(read(4, board16)));
+		assertFalse(solver.isUnique(read(4, "AB")));
+	}
+
+	@Test
+	public void testInvalid() throws IOException {
+		try {
+			solver.solve(read(4, "G  G"));
+			fail("Two Gs in a row");
+		} catch (InvalidPuzzleException e) {
+			// expected
+		} catch (CantSolveException e) {
+			fail("Should be invalid");
+		}
+	}
+
+}
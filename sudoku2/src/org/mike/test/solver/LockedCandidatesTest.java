@@ -0,0 +1,50 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mike.sudoku.CandidateGrid;
+import org.mike.sudoku.LockedCandidates;
+import org.mike.sudoku.Puzzle;
+import org.mike.util.Range;
+
+public class LockedCandidatesTest {
+
+	int d5 = 1 << 4;
+
+	@Test
+	public void testPointing() {
+		CandidateGrid grid = new CandidateGrid();
+		grid.load(new Puzzle());
+		// in box 0, 5 can only go in row 0
+		for (int cell : new int[] { 9, 10, 11, 18, 19, 20 }) {
+			grid.eliminate(cell, d5);
+		}
+		// one elimination for each square of row 0 outside the box
+		assertEquals(6, new LockedCandidates().apply(grid));
+		for (int col : new Range(3, 9)) {
+			assertEquals(0, grid.getCandidates(col) & d5);
+		}
+		// still possible in the box, and the rest of the board
+		assertEquals(d5, grid.getCandidates(0) & d5);
+		assertEquals(d5, grid.getCandidates(12) & d5);
+		assertEquals(0, new LockedCandidates().apply(grid));
+	}
+
+	@Test
+	public void testClaiming() {
+		CandidateGrid grid = new CandidateGrid();
+		grid.load(new Puzzle());
+		// in column 4, 5 can only go in the middle box
+		for (int row : new int[] { 0, 1, 2, 6, 7, 8 }) {
+			grid.eliminate(row * 9 + 4, d5);
+		}
+		assertEquals(6, new LockedCandidates().apply(grid));
+		for (int row : new Range(3, 6)) {
+			assertEquals(0, grid.getCandidates(row * 9 + 3) & d5);
+			assertEquals(0, grid.getCandidates(row * 9 + 5) & d5);
+			assertEquals(d5, grid.getCandidates(row * 9 + 4) & d5);
+		}
+	}
+
+}
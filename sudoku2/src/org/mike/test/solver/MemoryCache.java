@@ -0,0 +1,59 @@
+package org.mike.test.solver;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.jsr107cache.Cache;
+import net.sf.jsr107cache.CacheEntry;
+import net.sf.jsr107cache.CacheListener;
+import net.sf.jsr107cache.CacheStatistics;
+
+/**
+ * A JSR-107 cache that is just a map in this process, for testing the SolveCache's second
+ * tier without App Engine's memcache.  Nothing is ever evicted, there are no loaders or
+ * listeners, and there are no statistics.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class MemoryCache extends ConcurrentHashMap implements Cache {
+	private static final long serialVersionUID = -2214519834431961071L;
+
+	public Map getAll(Collection keys) {
+		Map result = new HashMap();
+		for (Object key : keys) {
+			Object value = get(key);
+			if (value != null) {
+				result.put(key, value);
+			}
+		}
+		return result;
+	}
+
+	public void load(Object key) {
+	}
+
+	public void loadAll(Collection keys) {
+	}
+
+	public Object peek(Object key) {
+		return get(key);
+	}
+
+	public CacheEntry getCacheEntry(Object key) {
+		return null;
+	}
+
+	public CacheStatistics getCacheStatistics() {
+		return null;
+	}
+
+	public void evict() {
+	}
+
+	public void addListener(CacheListener listener) {
+	}
+
+	public void removeListener(CacheListener listener) {
+	}
+}
@@ -0,0 +1,71 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.CandidateGrid;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.HiddenSingles;
+import org.mike.sudoku.LockedCandidates;
+import org.mike.sudoku.NakedSingles;
+import org.mike.sudoku.Pipeline;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+import org.mike.sudoku.Technique;
+
+public class PipelineTest {
+
+	/*
+	 * A technique that never finds anything, but counts how often it is asked
+	 */
+	class Counting implements Technique {
+		int calls = 0;
+
+		public String getName() {
+			return "counting";
+		}
+
+		public int getCost() {
+			return 100;
+		}
+
+		public int apply(CandidateGrid grid) {
+			calls++;
+			return 0;
+		}
+	}
+
+	@Test
+	public void testOrder() {
+		Technique[] techniques = new Pipeline(new LockedCandidates(), new HiddenSingles(), new NakedSingles()).getTechniques();
+		assertTrue(techniques[0] instanceof NakedSingles);
+		assertTrue(techniques[1] instanceof HiddenSingles);
+		assertTrue(techniques[2] instanceof LockedCandidates);
+	}
+
+	@Test
+	public void testExpensiveLast() throws IOException, CantSolveException {
+		// singles alone solve this one, so the expensive technique is never reached
+		String b = "       7 1 5   6 9247  8   5   1 7   8  7  6   2 4   3   4  8373 9   5 2 2       ";
+		Counting counting = new Counting();
+		Solver solver = new Solver(b);
+		solver.setIncremental(true);
+		solver.setPipeline(new Pipeline(new NakedSingles(), new HiddenSingles(), counting));
+		solver.solve();
+		assertEquals(0, counting.calls);
+
+		// but it is asked when the singles get stuck
+		Puzzle puzzle = read("  6  981     8      26    3   9   324       925   1  657   49      2      8      ");
+		try {
+			solver.solve(puzzle);
+		} catch (CantSolveException e) {
+			// expected
+		}
+		assertTrue(counting.calls > 0);
+	}
+
+}
@@ -0,0 +1,109 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Rating;
+import org.mike.sudoku.Solver;
+import org.mike.sudoku.Technique;
+
+public class RatingTest {
+
+	String singles = "3     8  7  2 5 6  2   3 4 859 12   2 73  19  3  972   7    3 9       1 5   4 726";
+	String hidden = " 8 36 2  9    26751 6 9 3   5      3    53 1  6 4     5   49 3    53 48   41    7";
+	String locked = " 9 5   26  4 981 3   3 2   5124  9    6   5329      1    94   1   725  9 6     4 ";
+	String pair = "1  7   5  5     182 9  3  6891 275  6 2  4 8        9   58  1  7  2    53    5829";
+
+	Rating rate(String board) throws IOException, CantSolveException {
+		Puzzle puzzle = read(board);
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		solver.solve(puzzle);
+		return new Rating(solver.getRating());
+	}
+
+	@Test
+	public void testHardest() throws IOException, CantSolveException {
+		assertEquals("naked single", rate(singles).getHardest().getName());
+		assertEquals("hidden single", rate(hidden).getHardest().getName());
+		assertEquals("locked candidates", rate(locked).getHardest().getName());
+		assertEquals("naked pair", rate(pair).getHardest().getName());
+	}
+
+	@Test
+	public void testLevels() throws IOException, CantSolveException {
+		assertEquals("easy", rate(singles).getLevel());
+		assertEquals("easy", rate(hidden).getLevel());
+		assertEquals("medium", rate(locked).getLevel());
+		assertEquals("hard", rate(pair).getLevel());
+		assertTrue(rate(hidden).getScore() < rate(locked).getScore());
+		assertTrue(rate(locked).getScore() < rate(pair).getScore());
+	}
+
+	@Test
+	public void testFires() throws IOException, CantSolveException {
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		Puzzle puzzle = read(locked);
+		solver.solve(puzzle);
+		Rating rating = solver.getRating();
+		int total = 0;
+		for (int i = 0; i < rating.getTechniques().length; i++) {
+			total += rating.getFires(rating.getTechniques()[i]);
+		}
+		assertEquals(solver.getSolveTries(), total);
+
+		// the next solve starts a new rating.  Singles only place digits, one for each blank,
+		// however few passes that takes
+		puzzle.readBoard(singles);
+		solver.solve(puzzle);
+		rating = solver.getRating();
+		Technique naked = solver.getPipeline().getTechniques()[0];
+		Technique hidden = solver.getPipeline().getTechniques()[1];
+		assertEquals(singles.replaceAll("[1-9]", "").length(), rating.getDeductions(naked) + rating.getDeductions(hidden));
+		assertTrue(rating.getDeductions(naked) > rating.getFires(naked));
+		assertEquals(rating.getDeductions(naked) + 2 * rating.getDeductions(hidden), rating.getScore());
+	}
+
+	@Test
+	public void testDeductions() throws IOException, CantSolveException {
+		// the eliminations count as well as the placements
+		Rating rating = rate(locked);
+		Technique lockedCandidates = rating.getTechniques()[2];
+		assertEquals("locked candidates", lockedCandidates.getName());
+		assertTrue(rating.getDeductions(lockedCandidates) >= rating.getFires(lockedCandidates));
+		assertTrue(rating.toString().contains("locked candidates x" + rating.getDeductions(lockedCandidates)));
+	}
+
+	@Test
+	public void testMoreClues() throws IOException, CantSolveException {
+		// the same puzzle with ten more clues needs ten fewer singles, and rates easier
+		Puzzle puzzle = read(singles);
+		new Solver().solve(puzzle);
+		String solution = puzzle.toString();
+		StringBuilder easier = new StringBuilder(singles);
+		for (int cell = 0, added = 0; added < 10; cell++) {
+			if (easier.charAt(cell) == ' ') {
+				easier.setCharAt(cell, solution.charAt(cell));
+				added++;
+			}
+		}
+		assertTrue(rate(easier.toString()).getScore() < rate(singles).getScore());
+	}
+
+	@Test
+	public void testUnrated() {
+		Rating rating = new Solver().getRating();
+		assertNull(rating.getHardest());
+		assertEquals(0, rating.getScore());
+		assertEquals("easy", rating.getLevel());
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.SolveCache;
+import org.mike.sudoku.Transform;
+
+public class SolveCacheTest {
+
+	String locked = " 9 5   26  4 981 3   3 2   5124  9    6   5329      1    94   1   725  9 6     4 ";
+	String pair = "1  7   5  5     182 9  3  6891 275  6 2  4 8        9   58  1  7  2    53    5829";
+
+	@Test
+	public void testSolvesOnce() throws IOException {
+		SolveCache cache = new SolveCache(10);
+		Puzzle puzzle = read(locked);
+		SolveCache.Entry entry = cache.solve(puzzle);
+		assertTrue(entry.isUnique());
+		assertTrue(puzzle.isSolved());
+		assertEquals("medium", entry.getLevel());
+		assertEquals(1, cache.getMisses());
+
+		// a transformed copy is the same puzzle, and gets its own solution
+		Random random = new Random(17);
+		for (int i = 0; i < 5; i++) {
+			Transform transform = Transform.random(random);
+			Puzzle copy = transform.apply(read(locked));
+			assertTrue(cache.solve(copy).isUnique());
+			assertEquals(transform.apply(puzzle).toString(), copy.toString());
+		}
+		assertEquals(1, cache.getMisses());
+		assertEquals(5, cache.getLocalHits());
+	}
+
+	@Test
+	public void testBackend() throws IOException {
+		MemoryCache backend = new MemoryCache();
+		new SolveCache(10, backend).lookup(read(pair));
+		assertEquals(1, backend.size());
+
+		// another process finds it in the backend
+		SolveCache other = new SolveCache(10, backend);
+		assertEquals("hard", other.lookup(read(pair)).getLevel());
+		assertEquals(0, other.getMisses());
+		assertEquals(1, other.getBackendHits());
+	}
+
+	@Test
+	public void testNotUnique() throws IOException {
+		SolveCache cache = new SolveCache(10);
+		Puzzle puzzle = read(pair.substring(0, 40));
+		SolveCache.Entry entry = cache.solve(puzzle);
+		assertFalse(entry.isUnique());
+		assertEquals(2, entry.getSolutions());
+		assertFalse(entry.isRated());
+		assertNull(entry.getRating());
+		assertFalse(puzzle.isSolved());
+	}
+
+	@Test
+	public void testBounded() throws IOException {
+		SolveCache cache = new SolveCache(1);
+		cache.lookup(read(locked));
+		cache.lookup(read(pair));
+		cache.lookup(read(locked));
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testKey() throws IOException {
+		String key = SolveCache.key(read(locked));
+		assertTrue(key.length() < 81);
+		assertEquals(key, SolveCache.key(Transform.random(new Random(5)).apply(read(locked))));
+		assertEquals("zzzc", SolveCache.key(new Puzzle()));
+	}
+}
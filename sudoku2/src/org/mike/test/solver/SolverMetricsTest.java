@@ -0,0 +1,124 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.mike.sudoku.Budget;
+import org.mike.sudoku.BudgetExceededException;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+import org.mike.sudoku.SolverMetrics;
+
+public class SolverMetricsTest {
+
+	String solvable = "       7 1 5   6 9247  8   5   1 7   8  7  6   2 4   3   4  8373 9   5 2 2       ";
+	String stuck = "  6  981     8      26    3   9   324       925   1  657   49      2      8      ";
+
+	void solve(Solver solver, String board) throws IOException {
+		Puzzle puzzle = read(board);
+		try {
+			solver.solve(puzzle);
+		} catch (CantSolveException e) {
+			// counted as stuck
+		}
+	}
+
+	long sum(long[] values) {
+		long sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	@Test
+	public void testCounts() throws IOException {
+		SolverMetrics metrics = SolverMetrics.get();
+		long solved = metrics.getSolved();
+		long stuckCount = metrics.getStuck();
+		long histogram = sum(metrics.getTriesHistogram());
+
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		solve(solver, solvable);
+		solve(solver, stuck);
+		assertEquals(solved + 1, metrics.getSolved());
+		assertEquals(stuckCount + 1, metrics.getStuck());
+		assertEquals(histogram + 2, sum(metrics.getTriesHistogram()));
+		assertTrue(metrics.getTechniques().length >= solver.getPipeline().getTechniques().length);
+		assertTrue(sum(metrics.getFires()) <= sum(metrics.getApplications()));
+	}
+
+	@Test
+	public void testStopped() throws IOException {
+		// running out of budget isn't being stuck
+		SolverMetrics metrics = SolverMetrics.get();
+		long stuckCount = metrics.getStuck();
+		long stopped = metrics.getStopped();
+		Puzzle puzzle = read(solvable);
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		try {
+			solver.solve(puzzle, new Budget(0, 0, 1));
+			fail("One step is not enough");
+		} catch (BudgetExceededException e) {
+			// counted as stopped
+		} catch (CantSolveException e) {
+			fail("Not stuck");
+		}
+		assertEquals(stopped + 1, metrics.getStopped());
+		assertEquals(stuckCount, metrics.getStuck());
+	}
+
+	@Test
+	public void testTimes() throws IOException {
+		// recording is on all the time, and only a sample of the applications is timed
+		SolverMetrics metrics = SolverMetrics.get();
+		assertTrue(metrics.isEnabled());
+		long applications = sum(metrics.getApplications());
+		// step mode, which loads the grid for every step, on a puzzle that tries every technique
+		Solver solver = new Solver();
+		for (int i = 0; i < 200; i++) {
+			solve(solver, stuck);
+		}
+		assertTrue(sum(metrics.getApplications()) > applications + 1000);
+		assertTrue(sum(metrics.getTechniqueNanos()) > 0);
+		assertTrue(metrics.getLoadNanos() > 0);
+	}
+
+	@Test
+	public void testDisabled() throws IOException {
+		SolverMetrics metrics = SolverMetrics.get();
+		metrics.setEnabled(false);
+		try {
+			long solved = metrics.getSolved();
+			long loads = metrics.getLoads();
+			solve(new Solver(), solvable);
+			assertEquals(solved, metrics.getSolved());
+			assertEquals(loads, metrics.getLoads());
+		} finally {
+			metrics.setEnabled(true);
+		}
+	}
+
+	@Test
+	public void testJmx() throws Exception {
+		SolverMetrics.get();
+		ObjectName name = new ObjectName(SolverMetrics.NAME);
+		if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+			fail("Not registered");
+		}
+		Object solved = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Solved");
+		assertTrue(solved instanceof Long);
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.BatchSolver;
+import org.mike.sudoku.BatchSolver.Status;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+import org.mike.sudoku.SolverPool;
+
+public class SolverPoolTest {
+
+	String solvable = "       7 1 5   6 9247  8   5   1 7   8  7  6   2 4   3   4  8373 9   5 2 2       ";
+	String stuck = "  6  981     8      26    3   9   324       925   1  657   49      2      8      ";
+	String invalid = "11";
+
+	@Test
+	public void testSameThread() {
+		assertTrue(SolverPool.getSolver() == SolverPool.getSolver());
+		assertTrue(SolverPool.getLinks() == SolverPool.getLinks());
+		assertTrue(SolverPool.getSolver().isIncremental());
+	}
+
+	@Test
+	public void testOtherThread() throws InterruptedException {
+		final Solver[] other = new Solver[1];
+		Thread thread = new Thread() {
+			public void run() {
+				other[0] = SolverPool.getSolver();
+			}
+		};
+		thread.start();
+		thread.join();
+		assertTrue(other[0] != null && other[0] != SolverPool.getSolver());
+	}
+
+	@Test
+	public void testReuse() throws IOException {
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		Puzzle fresh = read(solvable);
+		BatchSolver.solveOne(fresh, solver);
+
+		// a solver that has been stuck and contradicted solves the same as a new one
+		Solver pooled = SolverPool.getSolver();
+		assertEquals(Status.INVALID, BatchSolver.solveOne(read(invalid), pooled).getStatus());
+		assertEquals(Status.STUCK, BatchSolver.solveOne(read(stuck), pooled).getStatus());
+		Puzzle reused = read(solvable);
+		assertEquals(Status.SOLVED, BatchSolver.solveOne(reused, pooled).getStatus());
+		assertEquals(fresh.toString(), reused.toString());
+		assertEquals(solver.getSolveTries(), pooled.getSolveTries());
+	}
+
+	@Test
+	public void testReset() throws IOException {
+		Solver solver = SolverPool.getSolver(read(solvable));
+		assertEquals(0, solver.getSolveTries());
+		assertFalse(solver.madeProgress());
+		solver.step();
+		assertTrue(solver.madeProgress());
+	}
+
+}
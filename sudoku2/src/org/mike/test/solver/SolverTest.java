@@ -8,6 +8,7 @@ import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mike.sudoku.CantSolveException;
 import org.mike.sudoku.Puzzle;
 import org.mike.sudoku.Solver;
 
@@ -89,4 +90,9 @@ public class SolverTest {
 		
 	}
 
+	@Test(expected = IllegalArgumentException.class)
+	public void testOnlyNineByNine() throws CantSolveException {
+		// a 16 x 16 puzzle would be read through its top left corner
+		new Solver().solve(new Puzzle(4));
+	}
 }
@@ -0,0 +1,55 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mike.sudoku.CandidateGrid;
+import org.mike.sudoku.HiddenSubsets;
+import org.mike.sudoku.NakedSubsets;
+import org.mike.sudoku.Puzzle;
+import org.mike.util.Range;
+
+public class SubsetsTest {
+
+	// digit masks: digit d is bit d - 1
+	int d1 = 1;
+	int d2 = 2;
+	int d3 = 4;
+
+	@Test
+	public void testNakedTriple() {
+		CandidateGrid grid = new CandidateGrid();
+		grid.load(new Puzzle());
+		// {1,2}, {2,3} and {1,3} in the first three squares of row 0
+		grid.eliminate(0, ~(d1 | d2) & 0x1ff);
+		grid.eliminate(1, ~(d2 | d3) & 0x1ff);
+		grid.eliminate(2, ~(d1 | d3) & 0x1ff);
+
+		assertEquals(0, new NakedSubsets(2).apply(grid));
+		// three digits out of the other six squares of the row, and of the box
+		assertEquals(36, new NakedSubsets(3).apply(grid));
+		for (int cell : new Range(3, 9)) {
+			assertEquals(0, grid.getCandidates(cell) & (d1 | d2 | d3));
+		}
+		// the box of the triple loses them too, the column does not
+		assertEquals(0, grid.getCandidates(10) & (d1 | d2 | d3));
+		assertEquals(d1 | d2 | d3, grid.getCandidates(9 * 4) & (d1 | d2 | d3));
+	}
+
+	@Test
+	public void testHiddenPair() {
+		CandidateGrid grid = new CandidateGrid();
+		grid.load(new Puzzle());
+		// 1 and 2 can only go in the first two squares of row 0
+		for (int cell : new Range(2, 9)) {
+			grid.eliminate(cell, d1 | d2);
+		}
+
+		// the other seven digits out of both squares
+		assertEquals(14, new HiddenSubsets(2).apply(grid));
+		assertEquals(d1 | d2, grid.getCandidates(0));
+		assertEquals(d1 | d2, grid.getCandidates(1));
+		assertEquals(0, new HiddenSubsets(2).apply(grid));
+	}
+
+}
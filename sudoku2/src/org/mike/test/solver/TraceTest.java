@@ -0,0 +1,119 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mike.test.solver.Boards.read;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mike.sudoku.CantSolveException;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.Solver;
+import org.mike.sudoku.Trace;
+
+public class TraceTest {
+
+	String locked = " 9 5   26  4 981 3   3 2   5124  9    6   5329      1    94   1   725  9 6     4 ";
+	// stepping through this one finds an elimination again after a reload
+	String again = "  6  415     5   8  38 14          3 67   2  4   8     3 5   1    3 856 6 8 7 9  ";
+
+	Solver solver(Trace trace) {
+		Solver solver = new Solver();
+		solver.setIncremental(true);
+		solver.setTrace(trace);
+		return solver;
+	}
+
+	@Test
+	public void testPlacements() throws IOException, CantSolveException {
+		Trace trace = new Trace();
+		Puzzle puzzle = read(locked);
+		int blanks = locked.replaceAll("[1-9]", "").length();
+		solver(trace).solve(puzzle);
+
+		int placed = 0;
+		boolean eliminated = false;
+		for (int i = 0; i < trace.size(); i++) {
+			if (trace.isPlacement(i)) {
+				placed++;
+				int cell = trace.getCell(i);
+				assertEquals(1 << (puzzle.getSquare(cell / 9, cell % 9) - 1), trace.getDigits(i));
+			}
+			else {
+				eliminated = true;
+			}
+			assertTrue(i == 0 || trace.getPass(i) >= trace.getPass(i - 1));
+		}
+		// every blank is placed once, and the givens aren't deductions
+		assertEquals(blanks, placed);
+		assertTrue(eliminated);
+		assertEquals(0, trace.getDropped());
+		assertTrue(trace.toText().contains("locked candidates"));
+		assertTrue(trace.toJson().startsWith("{\"dropped\": 0, \"events\": [{\"pass\": 1,"));
+	}
+
+	@Test
+	public void testStepMode() throws IOException, CantSolveException {
+		// every step loads the grid again, and finds the same eliminations again
+		Trace trace = new Trace();
+		Solver solver = new Solver();
+		solver.setTrace(trace);
+		Puzzle puzzle = read(again);
+		solver.solve(puzzle);
+
+		int[] eliminated = new int[81];
+		boolean[] placed = new boolean[81];
+		int placements = 0;
+		for (int i = 0; i < trace.size(); i++) {
+			int cell = trace.getCell(i);
+			if (trace.isPlacement(i)) {
+				assertFalse(placed[cell]);
+				placed[cell] = true;
+				placements++;
+				assertEquals(1 << (puzzle.getSquare(cell / 9, cell % 9) - 1), trace.getDigits(i));
+			}
+			else {
+				assertEquals(0, eliminated[cell] & trace.getDigits(i));
+				eliminated[cell] |= trace.getDigits(i);
+			}
+			assertTrue(i == 0 || trace.getPass(i) >= trace.getPass(i - 1));
+		}
+		assertEquals(again.replaceAll("[1-9]", "").length(), placements);
+		assertEquals(0, trace.getDropped());
+
+		// the same deductions as one incremental solve
+		Trace incremental = new Trace();
+		solver(incremental).solve(read(again));
+		assertEquals(incremental.size(), trace.size());
+	}
+
+	@Test
+	public void testRing() throws IOException, CantSolveException {
+		Trace trace = new Trace(8);
+		Trace full = new Trace();
+		solver(trace).solve(read(locked));
+		solver(full).solve(read(locked));
+		assertEquals(8, trace.size());
+		assertEquals(full.size() - 8, trace.getDropped());
+		// the last events are kept
+		for (int i = 0; i < 8; i++) {
+			assertEquals(full.getCell(full.size() - 8 + i), trace.getCell(i));
+		}
+		assertTrue(trace.toText().startsWith("... " + trace.getDropped() + " earlier events"));
+	}
+
+	@Test
+	public void testNewSolve() throws IOException, CantSolveException {
+		Trace trace = new Trace();
+		Solver solver = solver(trace);
+		solver.solve(read(locked));
+		int size = trace.size();
+		solver.solve(read(locked));
+		assertEquals(size, trace.size());
+		assertNull(new Solver().getTrace());
+	}
+
+}
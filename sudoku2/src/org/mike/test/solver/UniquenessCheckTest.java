@@ -0,0 +1,77 @@
+package org.mike.test.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.mike.sudoku.Budget;
+import org.mike.sudoku.BudgetExceededException;
+import org.mike.sudoku.DancingLinks;
+import org.mike.sudoku.GridGenerator;
+import org.mike.sudoku.Puzzle;
+import org.mike.sudoku.UniquenessCheck;
+import org.mike.util.SplitRandom;
+
+public class UniquenessCheckTest {
+
+	Puzzle clues(int[] grid, boolean[] shown) {
+		Puzzle puzzle = new Puzzle();
+		for (int cell = 0; cell < 81; cell++) {
+			puzzle.setSquare(cell / 9, cell % 9, shown[cell] ? grid[cell] : 0);
+		}
+		return puzzle;
+	}
+
+	@Test
+	public void testAgreesWithLinks() {
+		SplitRandom random = new SplitRandom(17);
+		GridGenerator generator = new GridGenerator(random);
+		DancingLinks links = new DancingLinks();
+		UniquenessCheck check = new UniquenessCheck();
+		for (int i = 0; i < 20; i++) {
+			int[] grid = generator.generate();
+			boolean[] shown = new boolean[81];
+			for (int cell = 0; cell < 81; cell++) {
+				shown[cell] = true;
+			}
+			check.load(grid, shown);
+			for (int cell = 0; cell < 81; cell++) {
+				shown[cell] = false;
+				boolean unique = links.isUnique(clues(grid, shown));
+				assertEquals(unique, check.remove(cell));
+				assertEquals(!unique, check.isClue(cell));
+				shown[cell] = !unique;
+			}
+			// what is left is minimal
+			for (int cell = 0; cell < 81; cell++) {
+				if (shown[cell]) {
+					shown[cell] = false;
+					assertFalse(links.isUnique(clues(grid, shown)));
+					shown[cell] = true;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBudget() {
+		int[] grid = new GridGenerator(new SplitRandom(19)).generate();
+		boolean[] shown = new boolean[81];
+		for (int cell = 0; cell < 30; cell++) {
+			shown[cell] = true;
+		}
+		UniquenessCheck check = new UniquenessCheck();
+		check.load(grid, shown);
+		try {
+			// square 29 has other candidates, and after one of them 51 squares are left
+			check.remove(29, new Budget(0, 1, 0));
+			fail("Check didn't run out of budget");
+		}
+		catch (BudgetExceededException e) {
+			assertEquals("node limit", e.getExceeded());
+			assertTrue(check.isClue(29));
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package org.mike.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.mike.util.LruCache;
+
+public class LruCacheTest {
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		// using a makes b the oldest
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+		cache.put("c", 3);
+		assertNull(cache.get("b"));
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+		assertEquals(Integer.valueOf(3), cache.get("c"));
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNeedsRoom() {
+		new LruCache<String, Integer>(0);
+	}
+}
@@ -0,0 +1,60 @@
+package org.mike.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mike.util.SplitRandom;
+
+public class SplitRandomTest {
+
+	@Test
+	public void testKnownValue() {
+		// the first number of SplitMix64 from 0
+		assertEquals(0xe220a8397b1dcdafL, new SplitRandom(0).nextLong());
+	}
+
+	@Test
+	public void testSameSeed() {
+		SplitRandom a = new SplitRandom(1234);
+		SplitRandom b = new SplitRandom(1234);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(a.nextLong(), b.nextLong());
+			assertEquals(a.nextInt(81), b.nextInt(81));
+		}
+		assertFalse(new SplitRandom().nextLong() == new SplitRandom().nextLong());
+	}
+
+	@Test
+	public void testSplit() {
+		SplitRandom parent = new SplitRandom(99);
+		SplitRandom child = parent.split();
+		SplitRandom again = new SplitRandom(99).split();
+		int same = 0;
+		for (int i = 0; i < 100; i++) {
+			long c = child.nextLong();
+			assertEquals(c, again.nextLong());
+			if (c == parent.nextLong()) {
+				same++;
+			}
+		}
+		assertEquals(0, same);
+	}
+
+	@Test
+	public void testBounds() {
+		SplitRandom random = new SplitRandom(7);
+		int[] counts = new int[9];
+		for (int i = 0; i < 9000; i++) {
+			counts[random.nextInt(9)]++;
+		}
+		for (int count : counts) {
+			assertTrue(count > 800 && count < 1200);
+		}
+		for (int i = 0; i < 1000; i++) {
+			int n = random.nextInt(1 << 20);
+			assertTrue(n >= 0 && n < 1 << 20);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package org.mike.test.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mike.util.StripedCounter;
+
+public class StripedCounterTest {
+
+	@Test
+	public void testAdd() {
+		StripedCounter counter = new StripedCounter();
+		counter.increment();
+		counter.add(41);
+		assertEquals(42, counter.sum());
+		counter.reset();
+		assertEquals(0, counter.sum());
+	}
+
+	@Test
+	public void testThreads() throws InterruptedException {
+		final StripedCounter counter = new StripedCounter();
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						counter.increment();
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(80000, counter.sum());
+	}
+
+}
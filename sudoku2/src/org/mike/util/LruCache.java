@@ -0,0 +1,68 @@
+package org.mike.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map that holds at most a fixed number of entries, and drops the one that was used
+ * longest ago to make room.  It is a LinkedHashMap in access order, so a get moves the entry
+ * to the young end.  Because a get changes the map, every method is synchronized.
+ */
+public class LruCache<K, V> {
+	int capacity;
+	LinkedHashMap<K, V> map;
+	long evictions;
+
+	public LruCache(final int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity has to be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 7165468362312894203L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				if (size() > LruCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return the value, or null if it isn't cached.  It becomes the most recently used
+	 */
+	public synchronized V get(K key) {
+		return map.get(key);
+	}
+
+	public synchronized void put(K key, V value) {
+		map.put(key, value);
+	}
+
+	public synchronized V remove(K key) {
+		return map.remove(key);
+	}
+
+	public synchronized void clear() {
+		map.clear();
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return how many entries were dropped to make room
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+}
@@ -0,0 +1,129 @@
+package org.mike.util;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fast random source that can be split into independent streams: the SplitMix64 generator,
+ * the same as Java 8's SplittableRandom, which we can't use on Java 7.
+ *
+ * The state is one long that goes up by an odd gamma for every number, and each number is
+ * the state run through a mixing function.  split() makes a new generator from two numbers of
+ * this one, so a parallel worker can get its own stream without sharing any state.  The same
+ * seed always gives the same numbers, so a seed is enough to make a puzzle again.
+ *
+ * It extends Random so it can go anywhere a Random can, but unlike Random it is not thread
+ * safe: give each thread its own, by splitting.
+ */
+public class SplitRandom extends Random {
+	private static final long serialVersionUID = -3218937539848165425L;
+
+	static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	// seeds for generators made without one
+	static final AtomicLong SEEDER = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	long seed;
+	long gamma;
+
+	/**
+	 * A generator with a seed that is different every time
+	 */
+	public SplitRandom() {
+		this(newSeed());
+	}
+
+	public SplitRandom(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	SplitRandom(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * @return a seed that no other call returns, for something that should be random but
+	 * can be made again from its seed
+	 */
+	public static long newSeed() {
+		return mix64(SEEDER.getAndAdd(2 * GOLDEN_GAMMA));
+	}
+
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	/*
+	 * A gamma for a new generator.  It has to be odd, and have enough bit flips between
+	 * neighbors to mix well
+	 */
+	static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return n < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+	long nextSeed() {
+		return seed += gamma;
+	}
+
+	/**
+	 * @return a new generator whose numbers are independent of this one's
+	 */
+	public SplitRandom split() {
+		return new SplitRandom(nextLong(), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * Start over from a seed.  Random's constructor calls this too, before our fields are
+	 * set, so it can't depend on them
+	 */
+	@Override
+	public void setSeed(long seed) {
+		this.seed = seed;
+		gamma = GOLDEN_GAMMA;
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	@Override
+	public int nextInt() {
+		return mix32(nextSeed());
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (mix64(nextSeed()) >>> (64 - bits));
+	}
+
+	/**
+	 * @return a number from 0 up to bound, without the bias of taking a remainder
+	 */
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		int r = mix32(nextSeed());
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+			return r & m;
+		}
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+		}
+		return r;
+	}
+}
@@ -0,0 +1,60 @@
+package org.mike.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can add to without fighting over one cache line.  Each
+ * thread adds to one of several stripes, picked from its thread id, and reading the counter
+ * sums the stripes.  The stripes are padded apart so they don't share a cache line.
+ *
+ * This is the same idea as LongAdder, which we can't use on Java 7.  Adding is cheap;
+ * reading is slower and not an atomic snapshot, which is fine for statistics.
+ */
+public class StripedCounter {
+	// longs per stripe, so stripes are a 64 byte cache line apart
+	static final int PAD = 8;
+	static final int STRIPES;
+
+	static {
+		int n = 1;
+		while (n < Runtime.getRuntime().availableProcessors() * 2) {
+			n <<= 1;
+		}
+		STRIPES = n;
+	}
+
+	AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+	static int stripe() {
+		long id = Thread.currentThread().getId();
+		// spread the ids, which are mostly small and sequential
+		int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+		return ((h ^ (h >>> 16)) & (STRIPES - 1)) * PAD;
+	}
+
+	public void add(long x) {
+		cells.addAndGet(stripe(), x);
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	public long sum() {
+		long sum = 0;
+		for (int i = 0; i < STRIPES; i++) {
+			sum += cells.get(i * PAD);
+		}
+		return sum;
+	}
+
+	public void reset() {
+		for (int i = 0; i < STRIPES; i++) {
+			cells.set(i * PAD, 0);
+		}
+	}
+
+	public String toString() {
+		return Long.toString(sum());
+	}
+}
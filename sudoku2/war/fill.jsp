@@ -0,0 +1,13 @@
+<%@page import="org.mike.sudoku.PuzzlePool"%>
+<%@page import="org.mike.sudoku.SeedBank"%>
+<%@ page language="java" contentType="text/plain; charset=UTF-8"
+    pageEncoding="UTF-8"%>
+<%
+	// App Engine's frontends can't start threads, so the warmup request and cron fill the
+	// pool of the instance they land on, and give its seed bank its first seeds, so pages
+	// never build them.  Stay well inside the request deadline
+	int seeded = SeedBank.shared().seedLevels();
+	PuzzlePool pool = PuzzlePool.shared();
+	int count = pool.fillFor(20000);
+%>
+Seeded: <%= seeded %>, Built: <%= count %>, Failures: <%= pool.getFailures() %>
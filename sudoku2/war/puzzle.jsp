@@ -1,7 +1,14 @@
 <%@page import="org.mike.sudoku.NoSolutionException"%>
 <%@page import="java.util.Random"%>
 <%@page import="org.mike.util.Range"%>
+<%@page import="org.mike.util.SplitRandom"%>
 <%@page import="org.mike.sudoku.Builder"%>
+<%@page import="org.mike.sudoku.Budget"%>
+<%@page import="org.mike.sudoku.SolverPool"%>
+<%@page import="org.mike.sudoku.PuzzlePool"%>
+<%@page import="org.mike.sudoku.SeedBank"%>
+<%@page import="org.mike.sudoku.Puzzle"%>
+<%@page import="org.mike.sudoku.SolveCache"%>
 <%@ page language="java" contentType="text/html; charset=UTF-8"
     pageEncoding="UTF-8"%>
     
@@ -39,22 +46,91 @@ font-size:30px;
 </head>
 <body>
 <%
-	String level = request.getParameter("level");
-	if (level == null || level.isEmpty()) {
-		level = "35";
+	// the squares shown, the solution, and the footer
+	String shown;
+	String solution;
+	String footer;
+
+	// puzzle=81 squares, with anything but 1 to 9 for an empty one, checks and solves a puzzle
+	// from somewhere else.  Puzzles that were checked before, or are a reflection or
+	// relabeling of one, come out of the solve cache
+	String given = request.getParameter("puzzle");
+	if (given != null && !given.isEmpty()) {
+		if (given.length() != 81) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "A puzzle has 81 squares");
+			return;
+		}
+		Puzzle puzzle = new Puzzle();
+		puzzle.readBoard(given.getBytes("ISO-8859-1"), 0);
+		shown = puzzle.toString();
+		SolveCache.Entry entry = SolveCache.shared().solve(puzzle);
+		if (!entry.isUnique()) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+					entry.getSolutions() == 0 ? "The puzzle has no solution" : "The puzzle has more than one solution");
+			return;
+		}
+		solution = puzzle.toString();
+		footer = "D: " + (entry.isRated() ? entry.getLevel() + " " + entry.getScore() : "unrated");
 	}
-	int num = Integer.parseInt(level);
-	// brute force this
-	Builder p; 
-	int tries = 0;
-	while (true) {
-		try {
-	p = new Builder(num); 
-	break;
+	else {
+		String level = request.getParameter("level");
+		if (level == null || level.isEmpty()) {
+			level = "35";
+		}
+		int num = Integer.parseInt(level);
+		// engine=links only asks for a unique puzzle, not one the logic solver can do
+		boolean links = "links".equals(request.getParameter("engine"));
+		// brute force this, but don't hold the request thread for more than a few seconds
+		Budget budget = Budget.millis(5000);
+		// seed=n builds the same puzzle again, and shuffle=m the same copy of it (see Builder.transform)
+		String seedParam = request.getParameter("seed");
+		String shuffleParam = request.getParameter("shuffle");
+		boolean seeded = seedParam != null && !seedParam.isEmpty();
+		boolean shuffled = seeded && shuffleParam != null && !shuffleParam.isEmpty();
+		long givenSeed = 0;
+		long givenShuffle = 0;
+		if (seeded) {
+			try {
+				givenSeed = Long.parseLong(seedParam);
+				if (shuffled) {
+					givenShuffle = Long.parseLong(shuffleParam);
+				}
+			}
+			catch (NumberFormatException e) {
+				response.sendError(HttpServletResponse.SC_BAD_REQUEST, "The seed and shuffle have to be numbers");
+				return;
+			}
+		}
+		// most pages get a puzzle built ahead of time.  When the pool has run dry a relative of
+		// one built before will do, and only when there are none of those either do we build
+		Builder p = null;
+		if (!seeded && !links) {
+			p = PuzzlePool.shared().take(num);
+			if (p == null) {
+				p = SeedBank.shared().next(num, new SplitRandom());
+			}
+		}
+		int tries = 0;
+		while (p == null && !budget.isExceeded() && !(seeded && tries > 0)) {
+			long seed = seeded ? givenSeed : SplitRandom.newSeed();
+			try {
+				p = new Builder(num, links ? SolverPool.getLinks() : null, budget, seed);
+			}
+			catch(NoSolutionException e) {
+				tries++;
+			};
+		}
+		if (p == null) {
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "No puzzle found in time, please try again");
+			return;
+		}
+		if (shuffled) {
+			p = p.transform(givenShuffle);
 		}
-		catch(NoSolutionException e) {
-	tries++;
-		};
+		shown = p.toPuzzleString();
+		solution = p.toSolutionString();
+		footer = "C: " + level + ", D: " + (p.getRating() != null ? p.getRating().getLevel() + " " + p.getRating().getScore() : "unrated")
+				+ ", T: " + tries + ", S: " + p.getSeed() + (p.isCopy() ? ", X: " + p.getShuffle() : "");
 	}
 	Random rnd = new Random();
 %>
@@ -68,7 +144,7 @@ font-size:30px;
 				<% for (int r : new Range(3)) { %>
 					<tr>
 					<% for (int c : new Range(3)) { %>
-						<td><%= p.puzzleElement(tr*3 + r, tc*3 + c)  %></td>
+						<td><%= shown.charAt((tr*3 + r) * 9 + tc*3 + c) %></td>
 					<% } %>
 					</tr>
 				<% } %>
@@ -79,7 +155,7 @@ font-size:30px;
 	<%} %>
 </table>
 <p style="align:center">
-C: <%= level %>, S: <%= Integer.toString(p.getSolverSolveTries()) %>, T: <%= tries %>
+<%= footer %>
 </p>
 
 <% for (int i : new Range(40)) { %><br/><% } %> 
@@ -93,7 +169,7 @@ C: <%= level %>, S: <%= Integer.toString(p.getSolverSolveTries()) %>, T: <%= tri
 		<% for (int r : new Range(3)) { %>
 			<tr>
 			<% for (int c : new Range(3)) { %>
-				<td><%= p.puzzleSolution(tr*3 + r, tc*3 + c)  %></td>
+				<td><%= solution.charAt((tr*3 + r) * 9 + tc*3 + c) %></td>
 			<% } %>
 			</tr>
 		<% } %>